@@ -0,0 +1,28 @@
+package pepse.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks of the package with the GC profiler, so every result comes with its allocation rate.
+ * Usage: BenchmarkRunner [regexp of benchmarks]
+ */
+public class BenchmarkRunner {
+    private static final int FORKS = 1;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName())
+                .addProfiler(GCProfiler.class)
+                .forks(FORKS)
+                .warmupIterations(WARMUP_ITERATIONS)
+                .measurementIterations(MEASUREMENT_ITERATIONS)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,30 @@
+package pepse.bench;
+
+import danogl.GameManager;
+import danogl.collisions.GameObjectCollection;
+import danogl.gui.WindowController;
+import danogl.util.Vector2;
+import pepse.headless.HeadlessRunner;
+import pepse.headless.ScriptedInput;
+
+/**
+ * Creates the game objects the benchmarks need without a window.
+ */
+class BenchmarkWorlds {
+    static final Vector2 WINDOW_DIMENSIONS = new Vector2(1000, 700);
+
+    private BenchmarkWorlds() {
+    }
+
+    /**
+     * Creates an empty game object collection of a game that runs without a window.
+     * @return game object collection
+     */
+    static GameObjectCollection gameObjects() {
+        WindowController windowController = HeadlessRunner.stubWindow(WINDOW_DIMENSIONS);
+        GameManager game = new GameManager("benchmark", WINDOW_DIMENSIONS);
+        game.initializeGame(HeadlessRunner.blankImageReader(windowController), null,
+                new ScriptedInput().listener(), windowController);
+        return game.gameObjects();
+    }
+}
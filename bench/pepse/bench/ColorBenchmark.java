@@ -0,0 +1,41 @@
+package pepse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pepse.util.ColorSupplier;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * Measures ColorSupplier.approximateColor for as many colors as a chunk of terrain has blocks.
+ */
+@State(Scope.Thread)
+public class ColorBenchmark {
+    private static final Color BASE_GROUND_COLOR = new Color(212, 123, 74);
+    private static final int TERRAIN_DEPTH = 20;
+    @Param({"1", "1234567"})
+    public int seed;
+    @Param({"8", "32"})
+    public int chunkColumns;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(seed);
+    }
+
+    /**
+     * One approximated color for every block of a chunk.
+     * @param blackhole consumes the colors
+     */
+    @Benchmark
+    public void approximateColor(Blackhole blackhole) {
+        for (int i = 0; i < chunkColumns * TERRAIN_DEPTH; i++)
+            blackhole.consume(ColorSupplier.approximateColor(BASE_GROUND_COLOR, random));
+    }
+}
@@ -0,0 +1,67 @@
+package pepse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pepse.util.PerlinNoise;
+import pepse.world.Block;
+
+/**
+ * Measures PerlinNoise for a single x and for all columns of a chunk at once, where chunk against
+ * chunkPerColumn shows the gain of the batch API.
+ */
+@State(Scope.Thread)
+public class NoiseBenchmark {
+    @Param({"1", "1234567"})
+    public int seed;
+    @Param({"8", "32"})
+    public int chunkColumns;
+    // scalar measures PerlinNoise itself, create the implementation the game picks
+    @Param({"create", "scalar"})
+    public String implementation;
+    private PerlinNoise perlinNoise;
+    private float[] heights;
+    private double x;
+    private double chunkX;
+
+    @Setup
+    public void setUp() {
+        perlinNoise = implementation.equals("scalar") ? new PerlinNoise(seed) : PerlinNoise.create(seed);
+        heights = new float[chunkColumns];
+    }
+
+    /**
+     * Noise of one column, moving one column to the right every call.
+     * @return noise value
+     */
+    @Benchmark
+    public float single() {
+        x += Block.SIZE;
+        return perlinNoise.noise(x);
+    }
+
+    /**
+     * Noise of every column of a chunk with the batch API, moving one chunk to the right every call.
+     * @return the filled heights
+     */
+    @Benchmark
+    public float[] chunk() {
+        chunkX += chunkColumns * Block.SIZE;
+        perlinNoise.noise(chunkX, Block.SIZE, heights);
+        return heights;
+    }
+
+    /**
+     * Noise of every column of a chunk one column at a time, as a baseline for the batch API.
+     * @return the filled heights
+     */
+    @Benchmark
+    public float[] chunkPerColumn() {
+        chunkX += chunkColumns * Block.SIZE;
+        for (int i = 0; i < chunkColumns; i++)
+            heights[i] = perlinNoise.noise(chunkX + i * Block.SIZE);
+        return heights;
+    }
+}
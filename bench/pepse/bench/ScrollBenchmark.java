@@ -0,0 +1,59 @@
+package pepse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import pepse.PepseGameManager;
+import pepse.headless.HeadlessRunner;
+import pepse.headless.ScriptedInput;
+
+import java.awt.event.KeyEvent;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures PepseGameManager.update while the avatar walks right, one screen per operation.
+ * The width of chunks is fixed by WorldChunkManager, so this benchmark is only parameterised by seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScrollBenchmark {
+    private static final float DELTA_TIME = 1f / 70;
+    // the avatar walks 100 pixels a second, so crossing a window of 1000 pixels takes 10 seconds
+    private static final int SCREEN_FRAMES = 700;
+    @Param({"1", "1234567"})
+    public int seed;
+    private ScriptedInput input;
+    private PepseGameManager game;
+
+    @Setup
+    public void setUp() {
+        input = new ScriptedInput().hold(1, KeyEvent.VK_RIGHT);
+        game = HeadlessRunner.createWorld(new Random(seed), input);
+    }
+
+    @TearDown
+    public void tearDown() {
+        game.shutdown();
+    }
+
+    /**
+     * Walks one screen to the right.
+     * @return the updated game
+     */
+    @Benchmark
+    public PepseGameManager scrollOneScreen() {
+        for (int frame = 0; frame < SCREEN_FRAMES; frame++) {
+            input.advance();
+            game.update(DELTA_TIME);
+        }
+        return game;
+    }
+}
@@ -0,0 +1,53 @@
+package pepse.bench;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.WorldObjectPool;
+import pepse.world.chunks.ColumnIndex;
+
+/**
+ * Measures Terrain.createInRange for one chunk, followed by the removal of the chunk, so the measured state is
+ * the steady state of a scrolling world where removed blocks are reused.
+ */
+@State(Scope.Thread)
+public class TerrainBenchmark {
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS - 1;
+    private static final int UNDERGROUND_LAYER = GROUND_LAYER - 1;
+    @Param({"1", "1234567"})
+    public int seed;
+    @Param({"8", "32"})
+    public int chunkColumns;
+    private GameObjectCollection gameObjects;
+    private WorldObjectPool pool;
+    private ColumnIndex columnIndex;
+    private Terrain terrain;
+    private int chunk;
+
+    @Setup
+    public void setUp() {
+        gameObjects = BenchmarkWorlds.gameObjects();
+        pool = new WorldObjectPool();
+        columnIndex = new ColumnIndex();
+        terrain = new Terrain(gameObjects, GROUND_LAYER, UNDERGROUND_LAYER, BenchmarkWorlds.WINDOW_DIMENSIONS,
+                seed, pool);
+    }
+
+    /**
+     * Creates the terrain of the next chunk to the right and removes It.
+     * @return number of created objects
+     */
+    @Benchmark
+    public int createInRange() {
+        int firstColumn = chunk++ * chunkColumns;
+        int minX = firstColumn * Block.SIZE;
+        terrain.createInRange(minX, minX + chunkColumns * Block.SIZE, columnIndex);
+        return columnIndex.removeRange(firstColumn, firstColumn + chunkColumns - 1, gameObjects, pool);
+    }
+}
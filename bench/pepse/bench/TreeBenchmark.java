@@ -0,0 +1,65 @@
+package pepse.bench;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pepse.util.IntToFloatFunction;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.WorldObjectPool;
+import pepse.world.chunks.ColumnIndex;
+import pepse.world.trees.LeafSystem;
+import pepse.world.trees.Tree;
+
+import java.util.Random;
+
+/**
+ * Measures Tree.createInRange, with the generation of leaves and the baking of canopies, for one chunk, then
+ * Tree.updateLiveLeaves centered on the chunk, which gives every tree of It animated leaves, followed by the
+ * removal of the chunk, so the measured state is the steady state of a scrolling world where removed trunks
+ * and leaves are reused.
+ */
+@State(Scope.Thread)
+public class TreeBenchmark {
+    private static final int TREE_LAYER = Layer.STATIC_OBJECTS;
+    @Param({"1", "1234567"})
+    public int seed;
+    @Param({"8", "32"})
+    public int chunkColumns;
+    private GameObjectCollection gameObjects;
+    private WorldObjectPool pool;
+    private ColumnIndex columnIndex;
+    private Tree tree;
+    private int chunk;
+
+    @Setup
+    public void setUp() {
+        gameObjects = BenchmarkWorlds.gameObjects();
+        pool = new WorldObjectPool();
+        columnIndex = new ColumnIndex();
+        Terrain terrain = new Terrain(gameObjects, TREE_LAYER - 1, BenchmarkWorlds.WINDOW_DIMENSIONS, seed);
+        IntToFloatFunction groundHeightAt = terrain::groundHeightAt;
+        tree = new Tree(groundHeightAt, gameObjects, TREE_LAYER, seed, pool, new LeafSystem(groundHeightAt,
+                new Random(seed)));
+    }
+
+    /**
+     * Creates the trees of the next chunk to the right, gives them animated leaves and removes them.
+     * @return number of removed objects
+     */
+    @Benchmark
+    public int createInRange() {
+        int firstColumn = chunk++ * chunkColumns;
+        int minX = firstColumn * Block.SIZE;
+        int width = chunkColumns * Block.SIZE;
+        tree.createInRange(minX, minX + width, columnIndex);
+        // every tree of the chunk is within the live distance of its center
+        tree.updateLiveLeaves(minX + width / 2f, width, width, columnIndex);
+        tree.unload(firstColumn, firstColumn + chunkColumns - 1);
+        return columnIndex.removeRange(firstColumn, firstColumn + chunkColumns - 1, gameObjects, pool);
+    }
+}
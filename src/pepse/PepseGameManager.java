@@ -1,26 +1,38 @@
 package pepse;
 
 import danogl.GameManager;
-import danogl.GameObject;
 import danogl.collisions.Layer;
 import danogl.gui.ImageReader;
 import danogl.gui.SoundReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
 import danogl.gui.rendering.Camera;
-import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
-import pepse.util.Eraser;
+import pepse.diagnostics.FrameEvent;
+import pepse.headless.InputRecorder;
+import pepse.util.SpriteAtlas;
 import pepse.world.Avatar;
+import pepse.world.AvatarSprites;
 import pepse.world.Block;
+import pepse.world.Crowd;
+import pepse.world.HeightmapCache;
 import pepse.world.Sky;
 import pepse.world.Terrain;
-import pepse.world.daynight.Night;
-import pepse.world.daynight.Sun;
-import pepse.world.daynight.SunHalo;
+import pepse.world.TerrainCollisionResolver;
+import pepse.world.WorldObjectPool;
+import pepse.world.chunks.ColumnIndex;
+import pepse.world.chunks.RegionStore;
+import pepse.world.chunks.WorldChunkManager;
+import pepse.world.daynight.DayNightCycle;
+import pepse.world.trees.LeafSystem;
 import pepse.world.trees.Tree;
 import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The main class of the simulator.
@@ -30,24 +42,44 @@ public class PepseGameManager extends GameManager {
     private static final int SUN_LAYER = Layer.BACKGROUND + 1;
     private static final int SUN_HALO_LAYER = SUN_LAYER + 1;
     private static final int GROUND_LAYER = Layer.STATIC_OBJECTS - 1;
-    private static final int LEAVES_LAYER = Layer.STATIC_OBJECTS + 1;
+    private static final int UNDERGROUND_LAYER = GROUND_LAYER - 1;
     private static final int AVATAR_LAYER = Layer.STATIC_OBJECTS + 2;
-    private static final int ERASER_LAYER = Layer.STATIC_OBJECTS + 3;
+    private static final int CROWD_LAYER = AVATAR_LAYER - 1;
     private static final int FRAME_RATE = 70;
-    private static final int WORLD_OUTSIDE_OF_WINDOW = 4;
-    private static final int CREATING_FACTOR = 6;
+    private static final int HEIGHTMAP_MARGIN = 2 * WorldChunkManager.CHUNK_COLUMNS;
+    // trees this close to the avatar get animated leaves, and keep them until their canopy is out of sight
+    private static final float LIVE_LEAVES_DISTANCE = 8 * Block.SIZE;
+    private static final float CANOPY_HALF_WIDTH = 5 * Block.SIZE;
     private static final String TITLE = "PEPSE";
+    // resolve the avatar against the height of columns instead of colliding It with blocks
+    private static final boolean ANALYTIC_COLLISION = Boolean.getBoolean("pepse.analyticCollision");
+    // directory of pregenerated regions, and the seed they were generated with
+    private static final String REGIONS_DIRECTORY = System.getProperty("pepse.regions");
+    private static final Integer SEED = Integer.getInteger("pepse.seed");
+    // number of agents of the crowd, spread a block apart around the start of the world
+    private static final int CROWD_SIZE = Integer.getInteger("pepse.crowd", 0);
+    // file the keys and time steps of the session are recorded to, for InputRecorder
+    private static final String RECORD_PATH = System.getProperty("pepse.record");
+    private static final Path AVATAR_ATLAS = Paths.get("src/Santapng/avatar_atlas.png");
+    private static final Path AVATAR_ATLAS_TABLE = Paths.get("src/Santapng/avatar_atlas.txt");
     private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1000, 700);
-    private int minX;
-    private int maxX;
     private static final int TREE_LAYER = Layer.STATIC_OBJECTS;
     private Vector2 windowDimensions;
     private static final Color sunHaloColor = new Color(255, 255, 0, 20);
     private Tree tree;
     private Terrain terrain;
-    private GameObject avatar;
-    private Eraser leftEraser;
-    private Eraser rightEraser;
+    private HeightmapCache heightmap;
+    private WorldObjectPool pool;
+    private LeafSystem leafSystem;
+    private DayNightCycle dayNightCycle;
+    private Avatar avatar;
+    private Crowd crowd;
+    private InputRecorder recorder;
+    // number of worlds recorded so far, every world has its own trace
+    private int recordedWorlds;
+    private WorldChunkManager chunkManager;
+    private final Random random;
+    private final Integer seed;
 
     /**
      * Constructor
@@ -55,7 +87,32 @@ public class PepseGameManager extends GameManager {
      * @param dimesions dimensions of window
      */
     public PepseGameManager(String title, Vector2 dimesions) {
+        this(title, dimesions, new Random());
+    }
+
+    /**
+     * Constructor
+     * @param title title of window
+     * @param dimesions dimensions of window
+     * @param random random generator the seed of every created world is taken from
+     */
+    public PepseGameManager(String title, Vector2 dimesions, Random random) {
         super(title, dimesions);
+        this.random = random;
+        this.seed = null;
+    }
+
+    /**
+     * Constructor of a reproducible game: every world has the given seed, and its chunks are loaded in the same
+     * frames in every run, so replaying the same input creates the same objects.
+     * @param title title of window
+     * @param dimesions dimensions of window
+     * @param seed seed of every created world
+     */
+    public PepseGameManager(String title, Vector2 dimesions, int seed) {
+        super(title, dimesions);
+        this.random = null;
+        this.seed = seed;
     }
 
     /**
@@ -75,64 +132,68 @@ public class PepseGameManager extends GameManager {
                                UserInputListener inputListener,
                                WindowController windowController) {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        // decode the images of the avatar while the world is created, only the first game waits for It
+        CompletableFuture<SpriteAtlas> avatarAtlas = SpriteAtlas.loadAsync(AVATAR_ATLAS, AVATAR_ATLAS_TABLE);
+        shutdown();
         windowDimensions = windowController.getWindowDimensions();
-        // set borders and random seed
-        Random random = new Random();
-        int seed = random.nextInt();
-        minX = - WORLD_OUTSIDE_OF_WINDOW * Block.SIZE;
-        maxX = (int)windowDimensions.x() + WORLD_OUTSIDE_OF_WINDOW * Block.SIZE;
-        maxX -= maxX % Block.SIZE;
+        // set random seed
+        int seed = this.seed != null ? this.seed : SEED != null ? SEED : random.nextInt();
+        if (RECORD_PATH != null)
+            startRecording(inputListener, seed);
         //create terrain
-        terrain = new Terrain(gameObjects(), GROUND_LAYER, windowDimensions, seed);
-        terrain.createInRange(minX, maxX);
+        pool = new WorldObjectPool();
+        terrain = new Terrain(gameObjects(), GROUND_LAYER, UNDERGROUND_LAYER, windowDimensions, seed, pool);
+        // cache ground heights of the loaded window (two window widths) and a margin
+        heightmap = new HeightmapCache(terrain,
+                2 * (int)windowDimensions.x() / Block.SIZE + HEIGHTMAP_MARGIN);
 
         // create sky, night and sun with sun halo
-        createBackground();
+        createBackground(seed);
 
         //create trees
         createTrees(windowController, seed);
 
-        // add avatar
-        createAvatar(imageReader, inputListener, windowController);
-
-        // create eraser
-        createEraser();
-    }
+        // load the world around the center of window
+        RegionStore regions = REGIONS_DIRECTORY == null ? null :
+                new RegionStore(Paths.get(REGIONS_DIRECTORY), seed, windowDimensions.y());
+        chunkManager = new WorldChunkManager(gameObjects(), terrain, tree, heightmap, pool, windowDimensions.x(),
+                windowDimensions.x() / 2 + Block.SIZE, regions);
+        // a recorded session is loaded like its replays will be
+        chunkManager.setDeterministic(this.seed != null || recorder != null);
+        // the camera starts around the ground at the center, only the rows below It that It shows are created
+        if (!terrain.drawsStrips())
+            setVisibleRows(heightmap.applyAsFloat((int) windowDimensions.x() / 2));
+        chunkManager.update(windowDimensions.x() / 2, 0);
 
-    /**
-     * Creates Erasers that deletes a world outside of window
-     */
-    private void createEraser() {
-        leftEraser = new Eraser(new Vector2(-windowDimensions.x(), 0),
-                new Vector2(Block.SIZE, 2 * windowDimensions.y()), new RectangleRenderable(Color.GRAY), gameObjects(),
-                ERASER_LAYER, GROUND_LAYER, TREE_LAYER, LEAVES_LAYER);
-        rightEraser = new Eraser(new Vector2(2 * windowDimensions.x(), 0),
-                new Vector2(Block.SIZE, 2 * windowDimensions.y()), new RectangleRenderable(Color.GRAY), gameObjects(),
-                ERASER_LAYER, GROUND_LAYER, TREE_LAYER, LEAVES_LAYER);
-        // for removing objects in different layers
-        gameObjects().layers().shouldLayersCollide(ERASER_LAYER, GROUND_LAYER, true);
-        gameObjects().layers().shouldLayersCollide(ERASER_LAYER, LEAVES_LAYER, true);
-        gameObjects().layers().shouldLayersCollide(ERASER_LAYER, TREE_LAYER, true);
+        // add avatar
+        AvatarSprites avatarSprites = AvatarSprites.load(imageReader, avatarAtlas.join());
+        createAvatar(avatarSprites, inputListener, windowController);
+        createCrowd(avatarSprites, seed);
     }
 
     /**
      * Creates an Avatar and puts it in center of window
-     * @param imageReader - Contains a single method: readImage, which reads an image from disk.
-     *                    See its documentation for help.
+     * @param sprites - Images of the avatar.
      * @param inputListener - Contains a single method: isKeyPressed, which returns whether a
      *                      given key is currently pressed by the user or not. See its documentation.
      * @param windowController - Contains an array of helpful, self explanatory methods concerning the window.
      */
-    private void createAvatar(ImageReader imageReader, UserInputListener inputListener, WindowController windowController) {
-        avatar = Avatar.create(gameObjects(), AVATAR_LAYER, Vector2.ZERO, inputListener, imageReader);
-        gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, GROUND_LAYER, true);
-        gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, TREE_LAYER, true);
+    private void createAvatar(AvatarSprites sprites, UserInputListener inputListener,
+                              WindowController windowController) {
+        avatar = Avatar.create(gameObjects(), AVATAR_LAYER, Vector2.ZERO, inputListener, sprites);
+        if (ANALYTIC_COLLISION) {
+            avatar.setCollisionResolver(new TerrainCollisionResolver(heightmap, tree::trunkHeightAt));
+        } else {
+            gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, GROUND_LAYER, true);
+            gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, TREE_LAYER, true);
+        }
         // puts avatar without colliding with trees
-        int characterX = (int)windowDimensions.x() / 2;
-        characterX = characterX - (characterX % Block.SIZE);
-        while (tree.treeAt(characterX) || tree.treeAt(((characterX + Block.SIZE))))
-            characterX += Block.SIZE;
-        avatar.setCenter(new Vector2(characterX + Block.SIZE, terrain.groundHeightAt(characterX) -
+        ColumnIndex columnIndex = chunkManager.getColumnIndex();
+        int column = (int)windowDimensions.x() / 2 / Block.SIZE;
+        while (columnIndex.contains(column, TREE_LAYER) || columnIndex.contains(column + 1, TREE_LAYER))
+            column++;
+        int characterX = column * Block.SIZE;
+        avatar.setCenter(new Vector2(characterX + Block.SIZE, heightmap.applyAsFloat(characterX) -
                 avatar.getDimensions().y() / 2 - Block.SIZE));
         setCamera(
                 new Camera(
@@ -143,19 +204,51 @@ public class PepseGameManager extends GameManager {
                 ));
     }
 
+    /**
+     * Starts recording the keys and time steps of the world to the file of the pepse.record property. Worlds
+     * created by a reset of the game are recorded to that path followed by their number (file.1, file.2, ...),
+     * so the traces of earlier worlds are kept.
+     * @param inputListener listener the keys are read from
+     * @param seed seed of world
+     */
+    private void startRecording(UserInputListener inputListener, int seed) {
+        String path = recordedWorlds == 0 ? RECORD_PATH : RECORD_PATH + "." + recordedWorlds;
+        recordedWorlds++;
+        try {
+            recorder = InputRecorder.open(Paths.get(path), seed, inputListener);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates the crowd, if one was asked for. Its agents don't collide with anything, they stand on the terrain
+     * through a collision resolver that only calls the pure functions of terrain and trees, since they are
+     * moved on all cores.
+     * @param sprites - Images of the agents.
+     * @param seed seed of world
+     */
+    private void createCrowd(AvatarSprites sprites, int seed) {
+        crowd = null;
+        if (CROWD_SIZE <= 0)
+            return;
+        float center = windowDimensions.x() / 2;
+        float halfSpread = CROWD_SIZE * Block.SIZE / 2f;
+        crowd = Crowd.create(gameObjects(), CROWD_LAYER, sprites,
+                new TerrainCollisionResolver(terrain::groundHeightAt, tree::trunkHeightAt), CROWD_SIZE,
+                center - halfSpread, center + halfSpread, seed);
+    }
+
     /**
      * Creates a sky, night, sun with sun halo
+     * @param seed seed of world
      */
-    private void createBackground() {
+    private void createBackground(int seed) {
         // create sky
         Sky.create(gameObjects(), windowDimensions, Layer.BACKGROUND);
-        //create night
-        Night.create(gameObjects(), Layer.FOREGROUND,
-                windowDimensions, CYCLE_LENGTH);
-
-        //create sun (with halo)
-        GameObject sun = Sun.create(gameObjects(), SUN_LAYER, windowDimensions, CYCLE_LENGTH);
-        SunHalo.create(gameObjects(), SUN_HALO_LAYER, sun, sunHaloColor);
+        //create night and sun (with halo), moved by a single clock
+        dayNightCycle = DayNightCycle.create(gameObjects(), Layer.FOREGROUND, SUN_LAYER, SUN_HALO_LAYER,
+                windowDimensions, CYCLE_LENGTH, sunHaloColor, new Random(seed));
     }
 
     /**
@@ -164,10 +257,10 @@ public class PepseGameManager extends GameManager {
      * @param seed seed for random creating of trees
      */
     private void createTrees(WindowController windowController, int seed) {
-        tree = new Tree(terrain::groundHeightAt, gameObjects(), TREE_LAYER, seed);
-        tree.createInRange(minX, maxX);
+        // falling leaves land on the heightmap, so leaves don't collide with the ground
+        leafSystem = new LeafSystem(heightmap, new Random(seed));
+        tree = new Tree(heightmap, gameObjects(), TREE_LAYER, seed, pool, leafSystem);
         windowController.setTargetFramerate(FRAME_RATE);
-        gameObjects().layers().shouldLayersCollide(LEAVES_LAYER, GROUND_LAYER, true);
     }
 
     /**
@@ -175,26 +268,81 @@ public class PepseGameManager extends GameManager {
      */
     @Override
     public void update(float deltaTime) {
+        FrameEvent frame = new FrameEvent();
+        frame.begin();
+        // only time the parts of the frame when the event is recorded
+        boolean timed = frame.isEnabled();
+        if (recorder != null)
+            recorder.record(deltaTime);
+        long start = timed ? System.nanoTime() : 0;
         super.update(deltaTime);
-        // calculate new borders of world
-        float coordinateLeftX = avatar.getCenter().x() - windowDimensions.x();
-        // set erasers to correct positions according to avatar
-        leftEraser.setCenter(new Vector2(coordinateLeftX, terrain.groundHeightAt(coordinateLeftX)));
-        float coordinateRightX = avatar.getCenter().x() + windowDimensions.x();
-        rightEraser.setCenter(new Vector2(coordinateRightX, terrain.groundHeightAt(coordinateRightX)));
-        int newMinX = (int)( coordinateLeftX - coordinateLeftX % Block.SIZE + CREATING_FACTOR * Block.SIZE);
-        int newMaxX = (int)(coordinateRightX - coordinateRightX % Block.SIZE - CREATING_FACTOR * Block.SIZE);
-        // create world according to movement of avatar
-        if(minX > newMinX){
-            terrain.createInRange(newMinX, minX);
-            tree.createInRange(newMinX, minX);
+        dayNightCycle.update(deltaTime);
+        long engineEnd = timed ? System.nanoTime() : 0;
+        // load and unload chunks according to movement of avatar
+        chunkManager.update(avatar.getCenter().x(), avatar.getVelocity().x());
+        // the camera follows the center of the avatar. Strips show every row, so only single rows follow It
+        if (!terrain.drawsStrips())
+            setVisibleRows(avatar.getCenter().y());
+        long chunksEnd = timed ? System.nanoTime() : 0;
+        // animate leaves, the camera follows the center of the avatar
+        float halfWidth = windowDimensions.x() / 2;
+        tree.updateLiveLeaves(avatar.getCenter().x(), LIVE_LEAVES_DISTANCE, halfWidth + CANOPY_HALF_WIDTH,
+                chunkManager.getColumnIndex());
+        leafSystem.update(deltaTime, avatar.getCenter().x() - halfWidth, avatar.getCenter().x() + halfWidth);
+        long leavesEnd = timed ? System.nanoTime() : 0;
+        if (crowd != null)
+            crowd.update(deltaTime);
+        if (frame.shouldCommit()) {
+            frame.engineUpdate = engineEnd - start;
+            frame.chunkUpdate = chunksEnd - engineEnd;
+            frame.leafUpdate = leavesEnd - chunksEnd;
+            frame.crowdUpdate = System.nanoTime() - leavesEnd;
+            frame.loadedChunks = chunkManager.loadedChunkCount();
+            frame.loadedObjects = chunkManager.loadedObjectCount();
+            frame.heightmapHits = heightmap.getHits();
+            frame.heightmapMisses = heightmap.getMisses();
+            frame.commit();
         }
-        if(maxX < newMaxX){
-            terrain.createInRange(maxX, newMaxX);
-            tree.createInRange(maxX, newMaxX);
+    }
+
+    /**
+     * Creates the rows of the terrain below the surface that a camera centered at the given height shows,
+     * and removes the others.
+     * @param cameraCenterY Y coordinate of the center of the camera
+     */
+    private void setVisibleRows(float cameraCenterY) {
+        float halfHeight = windowDimensions.y() / 2;
+        terrain.setVisibleRange(cameraCenterY - halfHeight, cameraCenterY + halfHeight, heightmap,
+                chunkManager.getColumnIndex());
+    }
+
+    /**
+     * Stops the background generation of chunks of the current world, and completes its recording.
+     */
+    public void shutdown() {
+        if (chunkManager != null)
+            chunkManager.shutdown();
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
         }
-        minX = newMinX;
-        maxX = newMaxX;
+    }
+
+    /**
+     * @return number of game objects of the loaded chunks
+     */
+    public int loadedObjectCount() {
+        return chunkManager.loadedObjectCount();
+    }
+
+    /**
+     * @return number of loaded chunks, world objects, animated leaves and agents, the hit rate of the heightmap
+     * and the state of the pool
+     */
+    public String statistics() {
+        return "chunks: " + chunkManager.loadedChunkCount() + ", objects: " + chunkManager.loadedObjectCount() +
+                ", leaves: " + leafSystem.size() + (crowd != null ? ", agents: " + crowd.size() : "") +
+                ", heightmap: " + heightmap + ", " + pool;
     }
 
     public static void main(String[] args) {
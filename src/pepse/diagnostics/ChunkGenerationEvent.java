@@ -0,0 +1,38 @@
+package pepse.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of computing the data of a chunk, on a worker or on the game thread.
+ */
+@Name("pepse.ChunkGeneration")
+@Label("Chunk Generation")
+@Category("Pepse")
+@Description("Computation or reading of the terrain, trunks and leaves of a chunk")
+public class ChunkGenerationEvent extends Event {
+    @Label("Chunk")
+    public int chunk;
+
+    @Label("First Column")
+    public int minColumn;
+
+    @Label("Last Column")
+    public int maxColumn;
+
+    @Label("Ground Blocks")
+    public int groundBlocks;
+
+    @Label("Trunk Blocks")
+    public int trunkBlocks;
+
+    @Label("Leaves")
+    public int leaves;
+
+    @Label("Read From Region")
+    @Description("True if the chunk was read from a pregenerated region file")
+    public boolean fromRegion;
+}
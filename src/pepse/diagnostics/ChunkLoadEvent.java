@@ -0,0 +1,37 @@
+package pepse.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of adding the game objects of a generated chunk to the game.
+ */
+@Name("pepse.ChunkLoad")
+@Label("Chunk Load")
+@Category("Pepse")
+@Description("Creation of the game objects of a generated chunk on the game thread")
+public class ChunkLoadEvent extends Event {
+    @Label("Chunk")
+    public int chunk;
+
+    @Label("First Column")
+    public int minColumn;
+
+    @Label("Last Column")
+    public int maxColumn;
+
+    @Label("Terrain Objects Created")
+    @Description("Ground objects added to the game: a collider per column and the strip of the chunk, or single blocks")
+    public int terrainObjects;
+
+    @Label("Tree Objects Created")
+    @Description("Tree objects added to the game: a trunk and a canopy per tree")
+    public int treeObjects;
+
+    @Label("Generated In Background")
+    @Description("False if the game thread had to generate the chunk itself")
+    public boolean prefetched;
+}
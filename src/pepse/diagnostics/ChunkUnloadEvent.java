@@ -0,0 +1,28 @@
+package pepse.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of removing the game objects of a chunk from the game.
+ */
+@Name("pepse.ChunkUnload")
+@Label("Chunk Unload")
+@Category("Pepse")
+@Description("Removal of the game objects of a chunk and their return to the pool")
+public class ChunkUnloadEvent extends Event {
+    @Label("Chunk")
+    public int chunk;
+
+    @Label("First Column")
+    public int minColumn;
+
+    @Label("Last Column")
+    public int maxColumn;
+
+    @Label("Objects Removed")
+    public int objects;
+}
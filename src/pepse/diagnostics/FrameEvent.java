@@ -0,0 +1,51 @@
+package pepse.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a single frame, with the time spent in every part of the update.
+ */
+@Name("pepse.Frame")
+@Label("Frame")
+@Category("Pepse")
+@Description("One update of the game and the time spent in each part of It")
+public class FrameEvent extends Event {
+    @Label("Engine Update")
+    @Description("Update of all game objects and collisions by the engine")
+    @Timespan(Timespan.NANOSECONDS)
+    public long engineUpdate;
+
+    @Label("Chunk Update")
+    @Description("Loading and unloading of chunks")
+    @Timespan(Timespan.NANOSECONDS)
+    public long chunkUpdate;
+
+    @Label("Leaf Update")
+    @Description("Animation of all leaves")
+    @Timespan(Timespan.NANOSECONDS)
+    public long leafUpdate;
+
+    @Label("Crowd Update")
+    @Description("Decisions and movement of all agents of the crowd")
+    @Timespan(Timespan.NANOSECONDS)
+    public long crowdUpdate;
+
+    @Label("Loaded Chunks")
+    public int loadedChunks;
+
+    @Label("Loaded Objects")
+    public int loadedObjects;
+
+    @Label("Heightmap Hits")
+    @Description("Ground height lookups answered from the heightmap cache since the world was created")
+    public long heightmapHits;
+
+    @Label("Heightmap Misses")
+    @Description("Ground height lookups that computed the heights of a chunk since the world was created")
+    public long heightmapMisses;
+}
@@ -0,0 +1,155 @@
+package pepse.headless;
+
+import danogl.gui.ImageReader;
+import danogl.gui.WindowController;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+
+/**
+ * Runs worlds without a window: every world is initialized with a stub window, blank images and a scripted
+ * input, and is updated at a fixed step as fast as possible, without rendering.
+ * Usage: HeadlessRunner [frames] [worlds] [seed]
+ */
+public class HeadlessRunner {
+    static final String TITLE = "PEPSE";
+    static final Vector2 WINDOW_DIMENSIONS = new Vector2(1000, 700);
+    private static final float DELTA_TIME = 1f / 70;
+    private static final int DEFAULT_FRAMES = 10000;
+    static final int REPORT_FRAMES = 1000;
+    static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Creates the script of a walk through the world: walking right, jumping, flying and walking back.
+     * @return script of input
+     */
+    public static ScriptedInput defaultScript() {
+        return new ScriptedInput()
+                .hold(600, KeyEvent.VK_RIGHT)
+                .hold(20, KeyEvent.VK_RIGHT, KeyEvent.VK_SPACE)
+                .hold(200, KeyEvent.VK_RIGHT)
+                .hold(100, KeyEvent.VK_RIGHT, KeyEvent.VK_SPACE, KeyEvent.VK_SHIFT)
+                .hold(300, KeyEvent.VK_RIGHT)
+                .hold(100)
+                .hold(1200, KeyEvent.VK_LEFT);
+    }
+
+    /**
+     * Creates a window controller that only knows the dimensions of the window. Every other method does nothing.
+     * @param windowDimensions dimensions of window
+     * @return window controller
+     */
+    public static WindowController stubWindow(Vector2 windowDimensions) {
+        return (WindowController) Proxy.newProxyInstance(WindowController.class.getClassLoader(),
+                new Class<?>[]{WindowController.class}, (proxy, method, args) ->
+                        method.getName().equals("getWindowDimensions") ?
+                                windowDimensions : defaultValue(method.getReturnType()));
+    }
+
+    /**
+     * Creates an image reader that returns the same blank image for every path, without reading the disk.
+     * @param windowController window controller
+     * @return image reader
+     */
+    public static ImageReader blankImageReader(WindowController windowController) {
+        ImageRenderable blank = new ImageRenderable(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+        return new ImageReader(windowController) {
+            @Override
+            public ImageRenderable readImage(String imageFilePath, boolean useTopLeftPixelAsTransparent) {
+                return blank;
+            }
+        };
+    }
+
+    /**
+     * Returns the value a stub method returns: zero, false or null.
+     * @param type return type of method
+     * @return default value of type
+     */
+    static Object defaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return '\0';
+        if (type == float.class)
+            return 0f;
+        if (type == double.class)
+            return 0d;
+        if (type == long.class)
+            return 0L;
+        if (type == int.class)
+            return 0;
+        if (type == short.class)
+            return (short) 0;
+        if (type == byte.class)
+            return (byte) 0;
+        return null;
+    }
+
+    /**
+     * Creates and initializes a world with a stub window and blank images.
+     * @param random random generator the seed of the world is taken from
+     * @param input script the avatar is controlled by
+     * @return the initialized game, ready to be updated
+     */
+    public static PepseGameManager createWorld(Random random, ScriptedInput input) {
+        WindowController windowController = stubWindow(WINDOW_DIMENSIONS);
+        PepseGameManager game = new PepseGameManager(TITLE, WINDOW_DIMENSIONS, random);
+        game.initializeGame(blankImageReader(windowController), null, input.listener(), windowController);
+        return game;
+    }
+
+    /**
+     * Creates a world and updates It for the given number of frames, reporting the speed of the simulation.
+     * @param frames number of frames
+     * @param random random generator the seed of the world is taken from
+     */
+    public static void runWorld(int frames, Random random) {
+        ScriptedInput input = defaultScript();
+        long start = System.nanoTime();
+        PepseGameManager game = createWorld(random, input);
+        report("initialized", 0, System.nanoTime() - start, game);
+        long reportStart = System.nanoTime();
+        for (int frame = 1; frame <= frames; frame++) {
+            input.advance();
+            game.update(DELTA_TIME);
+            if (frame % REPORT_FRAMES == 0 || frame == frames) {
+                long now = System.nanoTime();
+                report("frame " + frame, frame % REPORT_FRAMES == 0 ? REPORT_FRAMES : frame % REPORT_FRAMES,
+                        now - reportStart, game);
+                reportStart = now;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        System.out.printf("total: %d frames in %.2f s, %.0f fps%n", frames, seconds, frames / seconds);
+        game.shutdown();
+    }
+
+    /**
+     * Prints the speed of the last frames and the size of the world.
+     * @param label label of report
+     * @param frames number of frames since last report
+     * @param nanos time since last report in nanoseconds
+     * @param game the simulated game
+     */
+    static void report(String label, int frames, long nanos, PepseGameManager game) {
+        double seconds = nanos / NANOS_PER_SECOND;
+        System.out.printf("%s: %.0f fps, %.3f ms, %s%n", label, frames / seconds, seconds * 1000,
+                game.statistics());
+    }
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        int worlds = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        Random random = args.length > 2 ? new Random(Long.parseLong(args[2])) : new Random();
+        for (int world = 0; world < worlds; world++) {
+            System.out.println("world " + (world + 1) + " of " + worlds);
+            runWorld(frames, random);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package pepse.headless;
+
+import danogl.gui.UserInputListener;
+
+import java.awt.event.KeyEvent;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records the keys the avatar reacts to and the time step of every frame, so a session can be replayed
+ * exactly by ReplayInput.
+ * A trace starts with a header (magic number, version and seed of world), followed by a byte of pressed keys
+ * (bit i is KEYS[i]) and the float time step of every frame.
+ */
+public class InputRecorder {
+    public static final int MAGIC = 0x50455054;
+    public static final int VERSION = 1;
+    public static final int[] KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_SPACE, KeyEvent.VK_SHIFT};
+    // flush once a second at the frame rate of the game, so little is lost if the process is killed
+    private static final int FLUSH_FRAMES = 70;
+    private final DataOutputStream output;
+    private final UserInputListener inputListener;
+    private final Thread closeOnExit = new Thread(this::close);
+    private int frames;
+    private boolean closed;
+
+    private InputRecorder(DataOutputStream output, UserInputListener inputListener) {
+        this.output = output;
+        this.inputListener = inputListener;
+    }
+
+    /**
+     * Starts a trace. The trace is also completed if the process exits without closing It.
+     * @param path path of trace file, replaced if It exists
+     * @param seed seed of the recorded world
+     * @param inputListener listener the keys are read from
+     * @return the recorder
+     * @throws IOException if the file can't be written
+     */
+    public static InputRecorder open(Path path, int seed, UserInputListener inputListener) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(seed);
+        InputRecorder recorder = new InputRecorder(output, inputListener);
+        Runtime.getRuntime().addShutdownHook(recorder.closeOnExit);
+        return recorder;
+    }
+
+    /**
+     * Records the keys that are pressed in the current frame. Should be called once at the start of every update.
+     * @param deltaTime time step of the frame
+     */
+    public synchronized void record(float deltaTime) {
+        if (closed)
+            return;
+        int keys = 0;
+        for (int i = 0; i < KEYS.length; i++)
+            if (inputListener.isKeyPressed(KEYS[i]))
+                keys |= 1 << i;
+        try {
+            output.writeByte(keys);
+            output.writeFloat(deltaTime);
+            if (++frames % FLUSH_FRAMES == 0)
+                output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return number of recorded frames
+     */
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Writes the rest of the trace and closes It. Later frames are not recorded.
+     */
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            output.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (Thread.currentThread() != closeOnExit)
+            Runtime.getRuntime().removeShutdownHook(closeOnExit);
+    }
+}
@@ -0,0 +1,107 @@
+package pepse.headless;
+
+import danogl.util.Vector2;
+import pepse.world.Terrain;
+import pepse.world.chunks.ChunkData;
+import pepse.world.chunks.ChunkGenerator;
+import pepse.world.chunks.RegionFile;
+import pepse.world.chunks.RegionStore;
+import pepse.world.trees.Tree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pregenerates region files of a world on all cores, so the game can read its chunks instead of generating them.
+ * Every worker has its own terrain and trees.
+ * Usage: PregenerateRegions seed regions directory [firstRegion] [windowHeight]
+ * By default the regions are centered around the start of the world, and the window height is the one of
+ * the game.
+ */
+public class PregenerateRegions {
+    private static final float DEFAULT_WINDOW_HEIGHT = 700;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Generates and writes a single region.
+     * @param terrain terrain of world
+     * @param tree trees of world
+     * @param directory directory of region files
+     * @param seed seed of world
+     * @param windowHeight height of the window of world
+     * @param region index of region
+     * @throws IOException if the file can't be written
+     */
+    private static void writeRegion(Terrain terrain, Tree tree, Path directory, int seed, float windowHeight,
+                                    int region) throws IOException {
+        ChunkData[] chunks = new ChunkData[RegionFile.REGION_CHUNKS];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = ChunkGenerator.generate(terrain, tree, region * RegionFile.REGION_CHUNKS + i);
+        RegionFile.write(RegionStore.pathOf(directory, seed, region), seed, windowHeight, chunks);
+    }
+
+    /**
+     * Generates and writes a range of regions on several threads. Every thread builds its own terrain and trees,
+     * so the generated chunks don't depend on which thread generates them.
+     * @param directory directory of region files
+     * @param seed seed of world
+     * @param windowHeight height of the window of world
+     * @param firstRegion index of first region
+     * @param regions number of regions
+     * @param threads number of threads
+     * @throws IOException if a file can't be written
+     * @throws InterruptedException if interrupted while waiting for the threads
+     * @throws ExecutionException if a region fails to generate
+     */
+    static void pregenerate(Path directory, int seed, float windowHeight, int firstRegion, int regions,
+                            int threads) throws IOException, InterruptedException, ExecutionException {
+        Files.createDirectories(directory);
+        // terrain and trees only compute data here, they never create game objects
+        ThreadLocal<Terrain> terrains = ThreadLocal.withInitial(
+                () -> new Terrain(null, 0, new Vector2(0, windowHeight), seed));
+        ThreadLocal<Tree> trees = ThreadLocal.withInitial(() -> {
+            Terrain terrain = terrains.get();
+            return new Tree(x -> terrain.groundHeightAt(x), null, 0, seed);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int region = firstRegion; region < firstRegion + regions; region++) {
+                int index = region;
+                futures.add(executor.submit(() -> {
+                    writeRegion(terrains.get(), trees.get(), directory, seed, windowHeight, index);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 3) {
+            System.err.println("usage: PregenerateRegions seed regions directory [firstRegion] [windowHeight]");
+            return;
+        }
+        int seed = Integer.parseInt(args[0]);
+        int regions = Integer.parseInt(args[1]);
+        Path directory = Paths.get(args[2]);
+        int firstRegion = args.length > 3 ? Integer.parseInt(args[3]) : -regions / 2;
+        float windowHeight = args.length > 4 ? Float.parseFloat(args[4]) : DEFAULT_WINDOW_HEIGHT;
+
+        long start = System.nanoTime();
+        pregenerate(directory, seed, windowHeight, firstRegion, regions, Runtime.getRuntime().availableProcessors());
+        System.out.printf("wrote regions %d to %d of seed %d in %.2f s%n", firstRegion, firstRegion + regions - 1,
+                seed, (System.nanoTime() - start) / NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,135 @@
+package pepse.headless;
+
+import danogl.gui.UserInputListener;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays back a trace written by InputRecorder: the keys of every frame, its time step and the seed of the
+ * recorded world.
+ */
+public class ReplayInput {
+    private static final int FRAME_BYTES = Byte.BYTES + Float.BYTES;
+    private final int seed;
+    private final byte[] keys;
+    private final float[] deltaTimes;
+    private int frame = -1;
+
+    private ReplayInput(int seed, byte[] keys, float[] deltaTimes) {
+        this.seed = seed;
+        this.keys = keys;
+        this.deltaTimes = deltaTimes;
+    }
+
+    /**
+     * Reads a whole trace.
+     * @param path path of trace file
+     * @return the trace, before its first frame
+     * @throws IOException if the file can't be read or is not a trace
+     */
+    public static ReplayInput load(Path path) throws IOException {
+        long size = Files.size(path);
+        try (InputStream stream = Files.newInputStream(path);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+            if (input.readInt() != InputRecorder.MAGIC || input.readInt() != InputRecorder.VERSION)
+                throw new IOException("not a trace of version " + InputRecorder.VERSION);
+            int seed = input.readInt();
+            // a trace cut off in the middle of a frame ends at its last whole frame
+            int frames = (int) ((size - 3 * Integer.BYTES) / FRAME_BYTES);
+            byte[] keys = new byte[frames];
+            float[] deltaTimes = new float[frames];
+            for (int i = 0; i < frames; i++) {
+                keys[i] = input.readByte();
+                deltaTimes[i] = input.readFloat();
+            }
+            return new ReplayInput(seed, keys, deltaTimes);
+        }
+    }
+
+    /**
+     * @return seed of the recorded world
+     */
+    public int seed() {
+        return seed;
+    }
+
+    /**
+     * @return number of frames in the trace
+     */
+    public int frames() {
+        return keys.length;
+    }
+
+    /**
+     * Moves the trace to the next frame. Should be called once before every update.
+     * @return false if the trace ended, true otherwise.
+     */
+    public boolean advance() {
+        if (frame < keys.length)
+            frame++;
+        return frame < keys.length;
+    }
+
+    /**
+     * @return time step of the current frame
+     */
+    public float deltaTime() {
+        return deltaTimes[frame];
+    }
+
+    /**
+     * Checks if a key was held in the current frame.
+     * @param key key code
+     * @return true if It was, false otherwise.
+     */
+    public boolean isKeyPressed(int key) {
+        return frame >= 0 && frame < keys.length && isKeyPressed(keys[frame], key);
+    }
+
+    /**
+     * Checks if a key was held in the current frame but not in the previous one.
+     * @param key key code
+     * @return true if It was, false otherwise.
+     */
+    public boolean wasKeyPressedThisFrame(int key) {
+        return isKeyPressed(key) && (frame == 0 || !isKeyPressed(keys[frame - 1], key));
+    }
+
+    /**
+     * Checks if a key is in a recorded set of keys.
+     * @param pressed recorded keys, bit i is InputRecorder.KEYS[i]
+     * @param key key code
+     * @return true if It is, false otherwise.
+     */
+    private static boolean isKeyPressed(byte pressed, int key) {
+        for (int i = 0; i < InputRecorder.KEYS.length; i++)
+            if (InputRecorder.KEYS[i] == key)
+                return (pressed & (1 << i)) != 0;
+        return false;
+    }
+
+    /**
+     * Creates an input listener that reads this trace. Methods of the listener that the trace doesn't
+     * know (mouse and so on) report nothing pressed.
+     * @return input listener
+     */
+    public UserInputListener listener() {
+        return (UserInputListener) Proxy.newProxyInstance(UserInputListener.class.getClassLoader(),
+                new Class<?>[]{UserInputListener.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isKeyPressed":
+                            return isKeyPressed((Integer) args[0]);
+                        case "wasKeyPressedThisFrame":
+                            return wasKeyPressedThisFrame((Integer) args[0]);
+                        default:
+                            return HeadlessRunner.defaultValue(method.getReturnType());
+                    }
+                });
+    }
+}
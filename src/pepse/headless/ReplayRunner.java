@@ -0,0 +1,68 @@
+package pepse.headless;
+
+import danogl.gui.WindowController;
+import pepse.PepseGameManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Replays recorded traces without a window, as reproducible load profiles. Every run creates the recorded world
+ * and feeds It the recorded keys and time steps, and prints a fingerprint of the number of loaded objects in
+ * every frame, which is the same for every run of the same trace.
+ * Record a trace by running the game, or HeadlessRunner, with -Dpepse.record=file.
+ * Usage: ReplayRunner trace [runs]
+ */
+public class ReplayRunner {
+    private static final int FINGERPRINT_FACTOR = 31;
+
+    /**
+     * Replays a trace once, reporting the speed of the simulation.
+     * @param path path of trace file
+     * @return fingerprint of the number of loaded objects in every frame
+     * @throws IOException if the trace can't be read
+     */
+    public static long replay(Path path) throws IOException {
+        ReplayInput input = ReplayInput.load(path);
+        WindowController windowController = HeadlessRunner.stubWindow(HeadlessRunner.WINDOW_DIMENSIONS);
+        long start = System.nanoTime();
+        PepseGameManager game = new PepseGameManager(HeadlessRunner.TITLE, HeadlessRunner.WINDOW_DIMENSIONS,
+                input.seed());
+        game.initializeGame(HeadlessRunner.blankImageReader(windowController), null, input.listener(),
+                windowController);
+        HeadlessRunner.report("initialized", 0, System.nanoTime() - start, game);
+        long fingerprint = game.loadedObjectCount();
+        long reportStart = System.nanoTime();
+        int frame = 0;
+        while (input.advance()) {
+            frame++;
+            game.update(input.deltaTime());
+            fingerprint = fingerprint * FINGERPRINT_FACTOR + game.loadedObjectCount();
+            if (frame % HeadlessRunner.REPORT_FRAMES == 0 || frame == input.frames()) {
+                long now = System.nanoTime();
+                int frames = frame % HeadlessRunner.REPORT_FRAMES == 0 ?
+                        HeadlessRunner.REPORT_FRAMES : frame % HeadlessRunner.REPORT_FRAMES;
+                HeadlessRunner.report("frame " + frame, frames, now - reportStart, game);
+                reportStart = now;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / HeadlessRunner.NANOS_PER_SECOND;
+        System.out.printf("total: %d frames in %.2f s, %.0f fps, fingerprint %016x%n", frame, seconds,
+                frame / seconds, fingerprint);
+        game.shutdown();
+        return fingerprint;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: ReplayRunner trace [runs]");
+            return;
+        }
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        for (int run = 0; run < runs; run++) {
+            System.out.println("run " + (run + 1) + " of " + runs);
+            replay(Paths.get(args[0]));
+        }
+    }
+}
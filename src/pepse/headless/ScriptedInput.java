@@ -0,0 +1,86 @@
+package pepse.headless;
+
+import danogl.gui.UserInputListener;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a fixed script of pressed keys instead of reading the keyboard.
+ * The script is a list of steps, each holding a set of keys for a number of frames, and starts over
+ * when It ends.
+ */
+public class ScriptedInput {
+    private final List<int[]> steps = new ArrayList<>();
+    private final List<Integer> durations = new ArrayList<>();
+    private int step;
+    private int frameInStep;
+
+    /**
+     * Adds a step to the end of the script.
+     * @param frames number of frames the keys are held
+     * @param keys key codes (from KeyEvent) held during the step
+     * @return this script
+     */
+    public ScriptedInput hold(int frames, int... keys) {
+        steps.add(keys);
+        durations.add(frames);
+        return this;
+    }
+
+    /**
+     * Moves the script to the next frame. Should be called once before every update.
+     */
+    public void advance() {
+        if (steps.isEmpty())
+            return;
+        frameInStep++;
+        if (frameInStep >= durations.get(step)) {
+            frameInStep = 0;
+            step = (step + 1) % steps.size();
+        }
+    }
+
+    /**
+     * Checks if a key is held in the current step.
+     * @param key key code
+     * @return true if It is, false otherwise.
+     */
+    public boolean isKeyPressed(int key) {
+        if (steps.isEmpty())
+            return false;
+        for (int pressed : steps.get(step))
+            if (pressed == key)
+                return true;
+        return false;
+    }
+
+    /**
+     * Checks if a key was pressed at the first frame of the current step.
+     * @param key key code
+     * @return true if It was, false otherwise.
+     */
+    public boolean wasKeyPressedThisFrame(int key) {
+        return frameInStep == 0 && isKeyPressed(key);
+    }
+
+    /**
+     * Creates an input listener that reads this script. Methods of the listener that the script doesn't
+     * know (mouse and so on) report nothing pressed.
+     * @return input listener
+     */
+    public UserInputListener listener() {
+        return (UserInputListener) Proxy.newProxyInstance(UserInputListener.class.getClassLoader(),
+                new Class<?>[]{UserInputListener.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isKeyPressed":
+                            return isKeyPressed((Integer) args[0]);
+                        case "wasKeyPressedThisFrame":
+                            return wasKeyPressedThisFrame((Integer) args[0]);
+                        default:
+                            return HeadlessRunner.defaultValue(method.getReturnType());
+                    }
+                });
+    }
+}
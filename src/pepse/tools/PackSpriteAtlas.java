@@ -0,0 +1,64 @@
+package pepse.tools;
+
+import pepse.util.SpriteAtlas;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Packs image files into a sprite atlas. The name of every frame is its path as given, so frames can be looked
+ * up by the same paths that were used to read them one by one.
+ * Like ImageReader with useTopLeftPixelAsTransparent, pixels of the color of the top left pixel become
+ * transparent. Frames are scaled to the given height, since they are drawn much smaller than they are stored.
+ * Usage: PackSpriteAtlas atlasImage frameTable frameHeight frame...
+ */
+public class PackSpriteAtlas {
+    private static final int TRANSPARENT = 0;
+
+    /**
+     * Reads a frame, makes its background transparent and scales It.
+     * @param path path of frame
+     * @param frameHeight height to scale to
+     * @return the frame
+     * @throws IOException if the frame can't be read
+     */
+    private static BufferedImage readFrame(String path, int frameHeight) throws IOException {
+        BufferedImage source = ImageIO.read(Paths.get(path).toFile());
+        if (source == null)
+            throw new IOException("can't decode " + path);
+        BufferedImage frame = new BufferedImage(source.getWidth(), source.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        int background = source.getRGB(0, 0);
+        for (int y = 0; y < source.getHeight(); y++)
+            for (int x = 0; x < source.getWidth(); x++) {
+                int rgb = source.getRGB(x, y);
+                frame.setRGB(x, y, rgb == background ? TRANSPARENT : rgb);
+            }
+        int frameWidth = Math.round((float) source.getWidth() * frameHeight / source.getHeight());
+        BufferedImage scaled = new BufferedImage(frameWidth, frameHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.drawImage(frame.getScaledInstance(frameWidth, frameHeight, Image.SCALE_AREA_AVERAGING),
+                0, 0, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: PackSpriteAtlas atlasImage frameTable frameHeight frame...");
+            return;
+        }
+        int frameHeight = Integer.parseInt(args[2]);
+        String[] names = new String[args.length - 3];
+        BufferedImage[] frames = new BufferedImage[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = args[i + 3];
+            frames[i] = readFrame(names[i], frameHeight);
+        }
+        SpriteAtlas.write(Paths.get(args[0]), Paths.get(args[1]), names, frames);
+        System.out.println("packed " + frames.length + " frames into " + args[0]);
+    }
+}
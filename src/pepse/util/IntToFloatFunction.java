@@ -0,0 +1,14 @@
+package pepse.util;
+
+/**
+ * Represents a function that accepts an int and produces a float, without boxing either of them.
+ */
+@FunctionalInterface
+public interface IntToFloatFunction {
+    /**
+     * Applies this function to the given argument.
+     * @param value the function argument
+     * @return the function result
+     */
+    float applyAsFloat(int value);
+}
@@ -0,0 +1,91 @@
+package pepse.util;
+
+import java.util.ArrayDeque;
+
+/**
+ * A bounded pool of reusable objects. Objects are handed out as they were released, resetting them
+ * (or creating a new one when the pool is empty) is up to the caller.
+ * @param <T> type of pooled objects
+ */
+public class ObjectPool<T> {
+    private final int maxSize;
+    private final ArrayDeque<T> free = new ArrayDeque<>();
+    private long created;
+    private long reused;
+    private long dropped;
+
+    /**
+     * Constructor
+     * @param maxSize maximal number of free objects kept by the pool
+     */
+    public ObjectPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a free object, if there is one. When null is returned the caller creates a new object,
+     * which is counted as created.
+     * @return an object that is not in use, or null.
+     */
+    public T obtain() {
+        T object = free.poll();
+        if (object == null)
+            created++;
+        else
+            reused++;
+        return object;
+    }
+
+    /**
+     * Returns an object that is no longer in use to the pool.
+     * @param object object to release
+     */
+    public void release(T object) {
+        if (free.size() < maxSize)
+            free.push(object);
+        else
+            dropped++;
+    }
+
+    /**
+     * @return number of free objects in the pool
+     */
+    public int size() {
+        return free.size();
+    }
+
+    /**
+     * @return number of objects that had to be created
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return number of objects that were handed out again
+     */
+    public long getReused() {
+        return reused;
+    }
+
+    /**
+     * @return number of released objects that didn't fit in the pool
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return part of obtained objects that were reused, between 0 and 1
+     */
+    public double reuseRate() {
+        long obtained = created + reused;
+        return obtained == 0 ? 0 : (double) reused / obtained;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d created=%d reused=%d dropped=%d reuse=%.1f%%",
+                size(), created, reused, dropped, 100 * reuseRate());
+    }
+}
@@ -1,28 +1,101 @@
 package pepse.util;
 
+import java.util.Arrays;
+
 /**
  * implements PerlinNoise algorithm for random landscape.
+ * An instance is never changed after construction, so It may be used by several threads at once: chunks are
+ * generated on worker threads and on the game thread with the same instance. Subclasses must keep this
+ * contract, any scratch space belongs to a single call.
  * @author Ohad Klein, Ethan Glick
  */
 public class PerlinNoise {
+    // gradient of grad(hash, x, 0, 0) for every low 4 bits of a hash, as a factor of x
+    private static final int[] GRADIENT_1D = {1, -1, 1, -1, 1, -1, 1, -1, 0, 0, 0, 0, 1, 0, -1, 0};
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTORIZED_CLASS = "pepse.util.VectorizedPerlinNoise";
+    private static final long DEFAULT_SIZE = 500;
     private final double seed;
-    private long default_size;
-    private int[] p;
+    private final long default_size;
+    private final int[] p;
+    // true when the seed is a whole number, so y and z of every sample fall on a lattice plane
+    private final boolean oneDimensional;
+    private final int[] gradients;
+    // per octave, x / size == x / default_size * octaveFrequencies[i] and size == octaveAmplitudes[i]
+    private final double[] octaveFrequencies;
+    private final double[] octaveAmplitudes;
 
     /**
      * Constructor.
      * @param seed - A seed for a random number generator.
      */
     public PerlinNoise(double seed) {
+        this(seed, true);
+    }
+
+    /**
+     * Constructor that can keep a whole seed off the 1D path, so that path can be checked against the 3D
+     * sampling It replaces.
+     * @param seed - A seed for a random number generator.
+     * @param oneDimensionalPath - false to always sample smoothNoise(x, 0, 0) in 3D.
+     */
+    PerlinNoise(double seed, boolean oneDimensionalPath) {
         this.seed = seed;
-        init();
+        this.default_size = DEFAULT_SIZE;
+        this.p = init();
+
+        // noise(x) samples smoothNoise(x, 0, 0), which offsets y by the seed. With a whole seed the fractional
+        // y and z are 0, only the two corners on the x-axis contribute, and their gradients depend on X alone.
+        this.oneDimensional = oneDimensionalPath && seed == Math.floor(seed);
+        if (oneDimensional) {
+            int Y = (int) Math.floor(seed) & 255;
+            this.gradients = new int[257];
+            for (int X = 0; X <= 256; X++) {
+                gradients[X] = GRADIENT_1D[p[p[p[X] + Y]] & 15];
+            }
+        } else {
+            this.gradients = null;
+        }
+
+        // the sizes of noise(x), halved from default_size while at least 1. Each is default_size divided by a
+        // power of two, so dividing by It is exactly dividing by default_size and scaling by that power
+        int octaves = 0;
+        for (float size = default_size; size >= 1; size /= 2.0) {
+            octaves++;
+        }
+        this.octaveFrequencies = new double[octaves];
+        this.octaveAmplitudes = new double[octaves];
+        float size = default_size;
+        for (int octave = 0; octave < octaves; octave++) {
+            octaveFrequencies[octave] = (double) default_size / size;
+            octaveAmplitudes[octave] = size;
+            size /= 2.0;
+        }
+    }
+
+    /**
+     * Creates the fastest available implementation: VectorizedPerlinNoise when the Vector API module is
+     * present (and the class was compiled), PerlinNoise otherwise. Both generate the same noise, and both are
+     * safe to use from several threads.
+     * @param seed - A seed for a random number generator.
+     * @return a new PerlinNoise
+     */
+    public static PerlinNoise create(double seed) {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (PerlinNoise) Class.forName(VECTORIZED_CLASS).getConstructor(double.class).newInstance(seed);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // not compiled with the Vector API, use the scalar implementation
+            }
+        }
+        return new PerlinNoise(seed);
     }
 
     /*
      * Initialize the permutation array and populate it.
      */
-    private void init() {
-        this.p = new int[512];
+    private static int[] init() {
+        int[] p = new int[512];
         int[] permutation = new int[]{151, 160, 137, 91, 90, 15, 131, 13, 201,
                 95, 96, 53, 194, 233, 7, 225, 140, 36, 103, 30, 69, 142, 8, 99,
                 37, 240, 21, 10, 23, 190, 6, 148, 247, 120, 234, 75, 0, 26,
@@ -43,13 +116,40 @@ public class PerlinNoise {
                 84, 204, 176, 115, 121, 50, 45, 127, 4, 150, 254, 138, 236,
                 205, 93, 222, 114, 67, 29, 24, 72, 243, 141, 128, 195, 78, 66,
                 215, 61, 156, 180};
-        this.default_size = 500;
 
         // Populate
         for (int i = 0; i < 256; i++) {
             p[256 + i] = p[i] = permutation[i];
         }
+        return p;
+    }
 
+    /**
+     * @return seed of noise
+     */
+    double getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return size of the first octave
+     */
+    long getDefaultSize() {
+        return default_size;
+    }
+
+    /**
+     * @return true if noise(x) takes the 1D path, which only whole seeds do
+     */
+    boolean isOneDimensional() {
+        return oneDimensional;
+    }
+
+    /**
+     * @return a copy of the gradient of every lattice X of the 1D path, null if there is no 1D path
+     */
+    int[] getGradients() {
+        return gradients == null ? null : gradients.clone();
     }
 
     /**
@@ -62,14 +162,72 @@ public class PerlinNoise {
         float size = default_size;
         float initialSize = size;
 
-        while (size >= 1) {
-            value += smoothNoise((x / size), (0f / size), (0f / size)) * size;
-            size /= 2.0;
+        if (oneDimensional) {
+            while (size >= 1) {
+                value += smoothNoise1D(x / size) * size;
+                size /= 2.0;
+            }
+        } else {
+            while (size >= 1) {
+                value += smoothNoise((x / size), (0f / size), (0f / size)) * size;
+                size /= 2.0;
+            }
         }
 
         return value / initialSize * 250;
     }
 
+    /**
+     * Generates noise for evenly spaced x values at once, out[i] = noise(startX + i * step).
+     * @param startX first x to generate noise from
+     * @param step distance between consecutive x values
+     * @param out array to fill with noise, its length is the number of values
+     */
+    public void noise(double startX, double step, float[] out) {
+        if (!oneDimensional) {
+            for (int i = 0; i < out.length; i++) {
+                out[i] = noise(startX + i * step);
+            }
+            return;
+        }
+        float initialSize = default_size;
+        // the only division of a column, every octave scales the result by a power of two
+        double[] scaledX = new double[out.length];
+        for (int i = 0; i < out.length; i++) {
+            scaledX[i] = (startX + i * step) / initialSize;
+        }
+
+        Arrays.fill(out, 0f);
+        for (int octave = 0; octave < octaveFrequencies.length; octave++) {
+            double frequency = octaveFrequencies[octave];
+            double amplitude = octaveAmplitudes[octave];
+            // the sum is rounded to float after every octave, like value += ... of noise(x)
+            for (int i = 0; i < out.length; i++) {
+                out[i] += smoothNoise1D(scaledX[i] * frequency) * amplitude;
+            }
+        }
+
+        for (int i = 0; i < out.length; i++) {
+            out[i] = out[i] / initialSize * 250;
+        }
+    }
+
+    /*
+     * smoothNoise(x, 0, 0) for a whole seed: the same arithmetic on the x-axis, without the corners
+     * whose weight is 0.
+     */
+    private double smoothNoise1D(double x) {
+        // Offset the coordinate by the seed value, the same way smoothNoise does
+        x += this.seed;
+        x += this.seed;
+
+        int X = (int) Math.floor(x) & 255;
+        x -= Math.floor(x);
+
+        double u = fade(x);
+        return lerp(u, gradients[X] * x, gradients[X + 1] * (x - 1));
+    }
+
     /*
      * smooths the noise, used in the noise function.
      */
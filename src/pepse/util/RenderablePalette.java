@@ -0,0 +1,61 @@
+package pepse.util;
+
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * A fixed set of approximate colors around a base color, each with a single shared renderable.
+ * Objects pick their variant from a hash of their position, so the same place always gets the same shade
+ * and no colors or renderables are allocated per object.
+ */
+public class RenderablePalette {
+    private final int seed;
+    private final Color[] colors;
+    private final Renderable[] renderables;
+
+    /**
+     * Constructor
+     * @param baseColor color to approximate
+     * @param variants number of different shades
+     * @param seed seed of the shades and of the choice between them
+     */
+    public RenderablePalette(Color baseColor, int variants, int seed) {
+        this.seed = seed;
+        this.colors = new Color[variants];
+        this.renderables = new Renderable[variants];
+        Random random = new Random(seed);
+        for (int i = 0; i < variants; i++) {
+            colors[i] = ColorSupplier.approximateColor(baseColor, random);
+            renderables[i] = new RectangleRenderable(colors[i]);
+        }
+    }
+
+    /**
+     * Chooses the variant of a given position.
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @return index of variant
+     */
+    public int variantAt(int x, int y) {
+        return SeededHash.bounded(SeededHash.hash(seed, x, y), colors.length);
+    }
+
+    /**
+     * @param variant index of variant
+     * @return color of variant
+     */
+    public Color color(int variant) {
+        return colors[variant];
+    }
+
+    /**
+     * @param variant index of variant
+     * @return shared renderable of variant
+     */
+    public Renderable renderable(int variant) {
+        return renderables[variant];
+    }
+}
@@ -0,0 +1,52 @@
+package pepse.util;
+
+/**
+ * Stateless hashing of world coordinates with a seed, used wherever generation has to give the same
+ * answer for the same place no matter when, where or in which order It is asked.
+ */
+public final class SeededHash {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private SeededHash() {
+    }
+
+    /**
+     * Hashes a seed and a single coordinate.
+     * @param seed seed of world
+     * @param x coordinate
+     * @return well mixed 64 bit hash
+     */
+    public static long hash(int seed, int x) {
+        return mix(mix(seed * GOLDEN_GAMMA) + x * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Hashes a seed and two coordinates.
+     * @param seed seed of world
+     * @param x first coordinate
+     * @param y second coordinate
+     * @return well mixed 64 bit hash
+     */
+    public static long hash(int seed, int x, int y) {
+        return mix(hash(seed, x) + y * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a value in [0, bound) taken from a hash.
+     * @param hash hash to take the value from
+     * @param bound upper bound (exclusive), must be positive
+     * @return value in [0, bound)
+     */
+    public static int bounded(long hash, int bound) {
+        return (int) (((hash >>> 32) * bound) >>> 32);
+    }
+
+    /*
+     * finalizer of SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
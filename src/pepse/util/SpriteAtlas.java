@@ -0,0 +1,142 @@
+package pepse.util;
+
+import danogl.gui.rendering.ImageRenderable;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Many frames packed into a single image, with a table of where every frame is.
+ * The frames are served as renderables of sub-images, which share the pixels of the one decoded atlas image.
+ * The table has a line per frame: x, y, width, height and name, separated by tabs.
+ */
+public class SpriteAtlas {
+    private static final String SEPARATOR = "\t";
+    private static final String FORMAT = "png";
+    private static final int MAX_WIDTH = 2048;
+    private static final Map<Path, CompletableFuture<SpriteAtlas>> CACHE = new ConcurrentHashMap<>();
+    private final BufferedImage image;
+    private final Map<String, ImageRenderable> frames = new HashMap<>();
+
+    private SpriteAtlas(BufferedImage image) {
+        this.image = image;
+    }
+
+    /**
+     * Loads an atlas on a background thread. Every atlas is only loaded once, later calls share the result.
+     * @param imagePath path of atlas image
+     * @param tablePath path of frame table
+     * @return the atlas, or null if It couldn't be loaded
+     */
+    public static CompletableFuture<SpriteAtlas> loadAsync(Path imagePath, Path tablePath) {
+        return CACHE.computeIfAbsent(imagePath, path -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(imagePath, tablePath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).exceptionally(e -> null));
+    }
+
+    /**
+     * Loads an atlas on the calling thread.
+     * @param imagePath path of atlas image
+     * @param tablePath path of frame table
+     * @return the atlas
+     * @throws IOException if the image or the table can't be read
+     */
+    public static SpriteAtlas load(Path imagePath, Path tablePath) throws IOException {
+        BufferedImage image = ImageIO.read(imagePath.toFile());
+        if (image == null)
+            throw new IOException("can't decode " + imagePath);
+        SpriteAtlas atlas = new SpriteAtlas(image);
+        try (BufferedReader reader = Files.newBufferedReader(tablePath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+                String[] fields = line.split(SEPARATOR, 5);
+                atlas.frames.put(fields[4], new ImageRenderable(image.getSubimage(Integer.parseInt(fields[0]),
+                        Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3]))));
+            }
+        }
+        return atlas;
+    }
+
+    /**
+     * Packs frames into an atlas image and its frame table. Frames are placed in rows, left to right.
+     * @param imagePath path of atlas image to write
+     * @param tablePath path of frame table to write
+     * @param names names of frames
+     * @param frames images of frames
+     * @throws IOException if the files can't be written
+     */
+    public static void write(Path imagePath, Path tablePath, String[] names, BufferedImage[] frames)
+            throws IOException {
+        int[] x = new int[frames.length];
+        int[] y = new int[frames.length];
+        int width = 0;
+        int rowX = 0;
+        int rowY = 0;
+        int rowHeight = 0;
+        for (int i = 0; i < frames.length; i++) {
+            if (rowX + frames[i].getWidth() > MAX_WIDTH) {
+                rowX = 0;
+                rowY += rowHeight;
+                rowHeight = 0;
+            }
+            x[i] = rowX;
+            y[i] = rowY;
+            rowX += frames[i].getWidth();
+            rowHeight = Math.max(rowHeight, frames[i].getHeight());
+            width = Math.max(width, rowX);
+        }
+        BufferedImage atlas = new BufferedImage(width, rowY + rowHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = atlas.createGraphics();
+        try (BufferedWriter writer = Files.newBufferedWriter(tablePath)) {
+            for (int i = 0; i < frames.length; i++) {
+                graphics.drawImage(frames[i], x[i], y[i], null);
+                writer.write(String.join(SEPARATOR, String.valueOf(x[i]), String.valueOf(y[i]),
+                        String.valueOf(frames[i].getWidth()), String.valueOf(frames[i].getHeight()), names[i]));
+                writer.newLine();
+            }
+        } finally {
+            graphics.dispose();
+        }
+        ImageIO.write(atlas, FORMAT, imagePath.toFile());
+    }
+
+    /**
+     * @param name name of frame
+     * @return true if the atlas has the frame, false otherwise.
+     */
+    public boolean contains(String name) {
+        return frames.containsKey(name);
+    }
+
+    /**
+     * @param name name of frame
+     * @return renderable of the frame, null if the atlas doesn't have It
+     */
+    public ImageRenderable renderable(String name) {
+        return frames.get(name);
+    }
+
+    /**
+     * @return width and height of the atlas image
+     */
+    public Dimension size() {
+        return new Dimension(image.getWidth(), image.getHeight());
+    }
+}
@@ -4,9 +4,9 @@ import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.gui.ImageReader;
 import danogl.gui.UserInputListener;
-import danogl.gui.rendering.ImageRenderable;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.SpriteAtlas;
 
 import java.awt.event.KeyEvent;
 
@@ -14,37 +14,44 @@ import java.awt.event.KeyEvent;
  * This class implements an avatar that can move around the world.
  */
 public class Avatar extends GameObject {
-    private static final Vector2 AVATAR_DIMENSIONS = new Vector2(2 * Block.SIZE, 70);
+    static final Vector2 AVATAR_DIMENSIONS = new Vector2(2 * Block.SIZE, 70);
     private static final String AVATAR = "avatar";
-    private static final float MOVEMENT_SPEED = 50;
-    private static final float JUMP_VELOCITY = 50;
-    private static final float FLIGHT_VELOCITY = 6;
-    private static final double ENERGY_FACTOR = 0.5;
-    private static final float ACCELERATION = 500;
-    private static final int IDLE_NUMBER = 16;
-    private static final float DOWN_VELOCITY_FACTOR = 3;
-    private static UserInputListener inputListener;
-    private static final String IDLE_IMAGE = "src/Santapng/Idle (%d).png";
-    private static final String JUMP_IMAGE = "src/Santapng/Jump (10).png";
-    private static final String FLIGHT_IMAGE = "src/Santapng/Slide (11).png";
-    private static final String WALK_IMAGE = "src/Santapng/Walk (%d).png";
-    private static ImageRenderable jumpRenderable;
-    private static ImageRenderable flightRenderable;
-    private double flightEnergy = 100;
-    private static int animationIdleCounter;
-    private static int animationWalkCounter;
-    private static final ImageRenderable[] idleState = new ImageRenderable[IDLE_NUMBER];
-    private static final int WALK_NUMBER = 13;
-    private static final ImageRenderable[] walkState = new ImageRenderable[WALK_NUMBER];
+    static final float MOVEMENT_SPEED = 50;
+    static final float JUMP_VELOCITY = 50;
+    static final float FLIGHT_VELOCITY = 6;
+    static final double ENERGY_FACTOR = 0.5;
+    static final float ACCELERATION = 500;
+    static final float DOWN_VELOCITY_FACTOR = 3;
+    static final double INITIAL_ENERGY = 100;
+    private final UserInputListener inputListener;
+    private final AvatarSprites sprites;
+    private double flightEnergy = INITIAL_ENERGY;
+    private int animationIdleCounter = 1;
+    private int animationWalkCounter;
+    private TerrainCollisionResolver collisionResolver;
 
     /**
-     * Constructor
+     * Constructor of an avatar that looks the same in every state and that something else than the user moves.
      * @param topLeftCorner - The location of the top-left corner of the created avatar.
      * @param dimensions dimensions of object
      * @param renderable rendering of object
      */
     public Avatar(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable) {
         super(topLeftCorner, dimensions, renderable);
+        this.inputListener = null;
+        this.sprites = AvatarSprites.of(renderable);
+    }
+
+    /**
+     * Constructor
+     * @param topLeftCorner - The location of the top-left corner of the created avatar.
+     * @param sprites images of avatar, may be shared with other avatars
+     * @param inputListener - Used for reading input from the user, null if something else moves the avatar.
+     */
+    Avatar(Vector2 topLeftCorner, AvatarSprites sprites, UserInputListener inputListener) {
+        super(topLeftCorner, AVATAR_DIMENSIONS, sprites.idle(0));
+        this.inputListener = inputListener;
+        this.sprites = sprites;
     }
 
     /**
@@ -60,9 +67,40 @@ public class Avatar extends GameObject {
                                 int layer, Vector2 topLeftCorner,
                                 UserInputListener inputListener,
                                 ImageReader imageReader){
-        initializeAvatar(inputListener, imageReader);
-        Avatar avatar = new Avatar(topLeftCorner,
-                AVATAR_DIMENSIONS, imageReader.readImage(String.format(IDLE_IMAGE, 1), true));
+        return create(gameObjects, layer, topLeftCorner, inputListener, imageReader, null);
+    }
+
+    /**
+     *This function creates an avatar that can travel the world and is followed by the camera.
+     *The can stand, walk, jump and fly, and never reaches the end of the world.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param layer - The number of the layer to which the created avatar should be added.
+     * @param topLeftCorner - The location of the top-left corner of the created avatar.
+     * @param inputListener - Used for reading input from the user.
+     * @param imageReader - Used for reading images that are not in the atlas.
+     * @param atlas - Atlas the images of the avatar are taken from, null to read every image from disk.
+     */
+    public static Avatar create(GameObjectCollection gameObjects,
+                                int layer, Vector2 topLeftCorner,
+                                UserInputListener inputListener,
+                                ImageReader imageReader, SpriteAtlas atlas){
+        return create(gameObjects, layer, topLeftCorner, inputListener, AvatarSprites.load(imageReader, atlas));
+    }
+
+    /**
+     *This function creates an avatar that can travel the world and is followed by the camera.
+     *The can stand, walk, jump and fly, and never reaches the end of the world.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param layer - The number of the layer to which the created avatar should be added.
+     * @param topLeftCorner - The location of the top-left corner of the created avatar.
+     * @param inputListener - Used for reading input from the user.
+     * @param sprites - Images of the avatar, may be shared with other avatars.
+     */
+    public static Avatar create(GameObjectCollection gameObjects,
+                                int layer, Vector2 topLeftCorner,
+                                UserInputListener inputListener,
+                                AvatarSprites sprites){
+        Avatar avatar = new Avatar(topLeftCorner, sprites, inputListener);
         avatar.setTag(AVATAR);
         gameObjects.addGameObject(avatar, layer);
         avatar.physics().preventIntersectionsFromDirection(Vector2.ZERO);
@@ -70,39 +108,56 @@ public class Avatar extends GameObject {
         return avatar;
     }
 
-    private static void initializeAvatar(UserInputListener inputListener, ImageReader imageReader) {
-        Avatar.inputListener = inputListener;
-        // create an array with idle states of avatar
-        for (int i = 0; i < IDLE_NUMBER; i++) {
-            idleState[i] = imageReader.readImage(String.format(IDLE_IMAGE, i+1), true);
-        }
-        // create an array with walk states of avatar
-        for (int i = 0; i < WALK_NUMBER; i++) {
-            walkState[i] = imageReader.readImage(String.format(WALK_IMAGE, i+1), true);
-        }
-        jumpRenderable = imageReader.readImage(JUMP_IMAGE, true);
-        flightRenderable = imageReader.readImage(FLIGHT_IMAGE, true);
-        // counters for switching states
-        animationIdleCounter = 1;
-        animationWalkCounter = 0;
+    /**
+     * Makes the avatar stand on the terrain and stop at tree trunks by querying their columns, instead of
+     * colliding with their blocks.
+     * @param collisionResolver resolver used after every movement, null to use block collisions
+     */
+    public void setCollisionResolver(TerrainCollisionResolver collisionResolver) {
+        this.collisionResolver = collisionResolver;
     }
 
     /**
      * Switches idle state of avatar with array of states.
      */
-    private void switchIdle(){
-        renderer().setRenderable(idleState[animationIdleCounter]);
+    void switchIdle(){
+        // the counter starts at the second state, which sprites of a single image don't have
+        renderer().setRenderable(sprites.idle(animationIdleCounter % sprites.idleCount()));
         // increment counter
-        animationIdleCounter = (animationIdleCounter + 1) % IDLE_NUMBER;
+        animationIdleCounter = (animationIdleCounter + 1) % sprites.idleCount();
     }
 
     /**
      * Switches walk state of avatar with array of states.
      */
-    private void switchWalk(){
-        renderer().setRenderable(walkState[animationWalkCounter]);
+    void switchWalk(){
+        renderer().setRenderable(sprites.walk(animationWalkCounter));
         // increment counter
-        animationWalkCounter = (animationWalkCounter + 1) % WALK_NUMBER;
+        animationWalkCounter = (animationWalkCounter + 1) % sprites.walkCount();
+    }
+
+    /**
+     * Shows the avatar jumping, and starts the idle and walk states over.
+     */
+    void showJump(){
+        renderer().setRenderable(sprites.jump());
+        resetAnimation();
+    }
+
+    /**
+     * Shows the avatar flying, and starts the idle and walk states over.
+     */
+    void showFlight(){
+        renderer().setRenderable(sprites.flight());
+        resetAnimation();
+    }
+
+    /**
+     * Sets states counters to zero.
+     */
+    void resetAnimation(){
+        animationIdleCounter = 0;
+        animationWalkCounter = 0;
     }
 
     /**
@@ -111,7 +166,13 @@ public class Avatar extends GameObject {
      */
     @Override
     public void update(float deltaTime) {
+        Vector2 previousTopLeft = getTopLeftCorner();
         super.update(deltaTime);
+        if (collisionResolver != null)
+            collisionResolver.resolve(this, previousTopLeft);
+        // an avatar without input is moved and animated by its owner
+        if (inputListener == null)
+            return;
         // set velocity down with acceleration
         Vector2 movementDir = Vector2.DOWN.mult(DOWN_VELOCITY_FACTOR);
         // case on ground
@@ -166,17 +227,16 @@ public class Avatar extends GameObject {
             // flying
             if(inputListener.isKeyPressed(KeyEvent.VK_SHIFT) && flightEnergy > 0){
                 movementDir = Vector2.UP.mult(FLIGHT_VELOCITY);
-                renderer().setRenderable(flightRenderable);
+                showFlight();
                 flightEnergy -= ENERGY_FACTOR;
             }
             // jumping
             else if(getVelocity().y() == 0f){
                 movementDir = Vector2.UP.mult(JUMP_VELOCITY);
-                renderer().setRenderable(jumpRenderable);
+                showJump();
             }
-            // set states counters to zero;
-            animationIdleCounter = 0;
-            animationWalkCounter = 0;
+            else
+                resetAnimation();
         }
         return movementDir;
     }
@@ -0,0 +1,121 @@
+package pepse.world;
+
+import danogl.gui.ImageReader;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+import pepse.util.SpriteAtlas;
+
+/**
+ * The images of an avatar in every state. They are read once and never change, so any number of avatars can
+ * share them.
+ */
+public class AvatarSprites {
+    private static final int IDLE_NUMBER = 16;
+    private static final int WALK_NUMBER = 13;
+    private static final String IDLE_IMAGE = "src/Santapng/Idle (%d).png";
+    private static final String JUMP_IMAGE = "src/Santapng/Jump (10).png";
+    private static final String FLIGHT_IMAGE = "src/Santapng/Slide (11).png";
+    private static final String WALK_IMAGE = "src/Santapng/Walk (%d).png";
+    private final Renderable[] idleState;
+    private final Renderable[] walkState;
+    private final Renderable jumpRenderable;
+    private final Renderable flightRenderable;
+
+    private AvatarSprites(Renderable renderable) {
+        idleState = new Renderable[]{renderable};
+        walkState = new Renderable[]{renderable};
+        jumpRenderable = renderable;
+        flightRenderable = renderable;
+    }
+
+    private AvatarSprites(ImageReader imageReader, SpriteAtlas atlas) {
+        idleState = new Renderable[IDLE_NUMBER];
+        walkState = new Renderable[WALK_NUMBER];
+        // create an array with idle states of avatar
+        for (int i = 0; i < IDLE_NUMBER; i++) {
+            idleState[i] = readImage(String.format(IDLE_IMAGE, i+1), imageReader, atlas);
+        }
+        // create an array with walk states of avatar
+        for (int i = 0; i < WALK_NUMBER; i++) {
+            walkState[i] = readImage(String.format(WALK_IMAGE, i+1), imageReader, atlas);
+        }
+        jumpRenderable = readImage(JUMP_IMAGE, imageReader, atlas);
+        flightRenderable = readImage(FLIGHT_IMAGE, imageReader, atlas);
+    }
+
+    /**
+     * Reads the images of an avatar.
+     * @param imageReader - Used for reading images that are not in the atlas.
+     * @param atlas - Atlas the images are taken from, null to read every image from disk.
+     * @return the images
+     */
+    public static AvatarSprites load(ImageReader imageReader, SpriteAtlas atlas) {
+        return new AvatarSprites(imageReader, atlas);
+    }
+
+    /**
+     * Creates the images of an avatar that looks the same in every state.
+     * @param renderable rendering of avatar
+     * @return the images
+     */
+    public static AvatarSprites of(Renderable renderable) {
+        return new AvatarSprites(renderable);
+    }
+
+    /**
+     * Takes an image from the atlas, or reads It from disk if the atlas doesn't have It.
+     * @param path path of image
+     * @param imageReader - Used for reading images from disk or from within a jar.
+     * @param atlas atlas of images, may be null
+     * @return rendering of image
+     */
+    private static ImageRenderable readImage(String path, ImageReader imageReader, SpriteAtlas atlas) {
+        if (atlas != null && atlas.contains(path))
+            return atlas.renderable(path);
+        return imageReader.readImage(path, true);
+    }
+
+    /**
+     * @return number of idle states
+     */
+    public int idleCount() {
+        return idleState.length;
+    }
+
+    /**
+     * @return number of walk states
+     */
+    public int walkCount() {
+        return walkState.length;
+    }
+
+    /**
+     * @param index index of idle state
+     * @return rendering of the idle state
+     */
+    public Renderable idle(int index) {
+        return idleState[index];
+    }
+
+    /**
+     * @param index index of walk state
+     * @return rendering of the walk state
+     */
+    public Renderable walk(int index) {
+        return walkState[index];
+    }
+
+    /**
+     * @return rendering of a jump
+     */
+    public Renderable jump() {
+        return jumpRenderable;
+    }
+
+    /**
+     * @return rendering of a flight
+     */
+    public Renderable flight() {
+        return flightRenderable;
+    }
+}
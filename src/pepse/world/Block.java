@@ -11,6 +11,7 @@ import danogl.util.Vector2;
  */
 public class Block extends GameObject {
     public static final int SIZE = 30;
+    public static final Vector2 DIMENSIONS = Vector2.ONES.mult(SIZE);
 
     /**
      * Constructor
@@ -19,8 +20,23 @@ public class Block extends GameObject {
      * @param renderable    - A renderable to render as the block.
      */
     public Block(Vector2 topLeftCorner, Renderable renderable) {
-        super(topLeftCorner, Vector2.ONES.mult(SIZE), renderable);
+        super(topLeftCorner, DIMENSIONS, renderable);
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
         physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
     }
+
+    /**
+     * Resets a block that is reused from a pool, as if It was just constructed.
+     *
+     * @param topLeftCorner - The location of the top-left corner of the block.
+     * @param renderable    - A renderable to render as the block.
+     */
+    public void reset(Vector2 topLeftCorner, Renderable renderable) {
+        setDimensions(DIMENSIONS);
+        setTopLeftCorner(topLeftCorner);
+        setVelocity(Vector2.ZERO);
+        renderer().setRenderable(renderable);
+        renderer().setRenderableAngle(0);
+        renderer().setOpaqueness(1);
+    }
 }
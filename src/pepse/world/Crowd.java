@@ -0,0 +1,216 @@
+package pepse.world;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.util.Vector2;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Many avatars that walk, jump and fly over the terrain on their own, as a test of how many entities the world
+ * can hold.
+ * The state of every agent is kept in parallel primitive arrays. A frame first lets every agent decide what to
+ * do and moves It, by the rules of Avatar, in parallel on all cores. The agents only read their own state and
+ * the columns of the terrain, which are pure functions of the seed. Then a single thread copies the results to
+ * the avatars, since the engine is not thread safe.
+ */
+public class Crowd {
+    private static final byte IDLE = 0;
+    private static final byte WALKING = 1;
+    private static final byte JUMPING = 2;
+    private static final byte FLYING = 3;
+    private static final byte AIRBORNE = 4;
+    // agents handled by one task of the parallel phase
+    private static final int BATCH_SIZE = 256;
+    private static final float MIN_DECISION_TIME = 0.5f;
+    private static final float MAX_DECISION_TIME = 3f;
+    private static final float JUMP_PROBABILITY = 0.2f;
+    private static final float FLIGHT_PROBABILITY = 0.1f;
+    private final Avatar[] avatars;
+    private final TerrainCollisionResolver collisionResolver;
+    private final float width;
+    private final float height;
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final double[] flightEnergy;
+    private final float[] decisionTimers;
+    private final byte[] directions;
+    private final boolean[] jumpIntents;
+    private final boolean[] flightIntents;
+    private final byte[] poses;
+    private final SplittableRandom[] randoms;
+
+    private Crowd(Avatar[] avatars, TerrainCollisionResolver collisionResolver, int seed) {
+        int count = avatars.length;
+        this.avatars = avatars;
+        this.collisionResolver = collisionResolver;
+        this.width = Avatar.AVATAR_DIMENSIONS.x();
+        this.height = Avatar.AVATAR_DIMENSIONS.y();
+        x = new float[count];
+        y = new float[count];
+        velocityX = new float[count];
+        velocityY = new float[count];
+        flightEnergy = new double[count];
+        decisionTimers = new float[count];
+        directions = new byte[count];
+        jumpIntents = new boolean[count];
+        flightIntents = new boolean[count];
+        poses = new byte[count];
+        randoms = new SplittableRandom[count];
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < count; i++) {
+            Vector2 topLeft = avatars[i].getTopLeftCorner();
+            x[i] = topLeft.x();
+            y[i] = topLeft.y();
+            flightEnergy[i] = Avatar.INITIAL_ENERGY;
+            // every agent has its own generator, so its decisions don't depend on the thread that makes them
+            randoms[i] = seeds.split();
+        }
+    }
+
+    /**
+     * This function creates agents spread evenly over a range of the world, standing on the terrain.
+     * The agents don't collide with anything, they are kept on the terrain by the collision resolver.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param layer - The number of the layer to which the agents should be added.
+     * @param sprites - Images of the agents, shared by all of them.
+     * @param collisionResolver - Resolver of the terrain, its functions must be safe to call from any thread.
+     * @param count - Number of agents.
+     * @param minX - Left edge of the range the agents are spread over.
+     * @param maxX - Right edge of the range the agents are spread over.
+     * @param seed - Seed the decisions of the agents are taken from.
+     * @return A new crowd.
+     */
+    public static Crowd create(GameObjectCollection gameObjects, int layer, AvatarSprites sprites,
+                               TerrainCollisionResolver collisionResolver, int count, float minX, float maxX,
+                               int seed) {
+        Avatar[] avatars = new Avatar[count];
+        float spacing = (maxX - minX) / Math.max(count, 1);
+        for (int i = 0; i < count; i++) {
+            float agentX = minX + i * spacing;
+            float floor = collisionResolver.highestTop(agentX, Avatar.AVATAR_DIMENSIONS.x());
+            avatars[i] = new Avatar(new Vector2(agentX, floor - Avatar.AVATAR_DIMENSIONS.y()), sprites, null);
+            gameObjects.addGameObject(avatars[i], layer);
+        }
+        return new Crowd(avatars, collisionResolver, seed);
+    }
+
+    /**
+     * @return number of agents
+     */
+    public int size() {
+        return avatars.length;
+    }
+
+    /**
+     * Lets every agent decide and move in parallel, then shows the results.
+     * @param deltaTime time since last update
+     */
+    public void update(float deltaTime) {
+        int batches = (avatars.length + BATCH_SIZE - 1) / BATCH_SIZE;
+        IntStream.range(0, batches).parallel().forEach(batch -> {
+            int end = Math.min(avatars.length, (batch + 1) * BATCH_SIZE);
+            for (int i = batch * BATCH_SIZE; i < end; i++)
+                step(i, deltaTime);
+        });
+        for (int i = 0; i < avatars.length; i++)
+            commit(i);
+    }
+
+    /**
+     * Moves an agent like the engine moves an avatar, keeps It on the terrain, and then decides its next
+     * velocity like Avatar.update does with the keys of the user. Only touches the state of the agent.
+     * @param i index of agent
+     * @param deltaTime time since last update
+     */
+    private void step(int i, float deltaTime) {
+        float previousX = x[i];
+        float previousY = y[i];
+        velocityY[i] += Avatar.ACCELERATION * deltaTime;
+        float movedX = previousX + velocityX[i] * deltaTime;
+        y[i] = previousY + velocityY[i] * deltaTime;
+        x[i] = collisionResolver.resolveHorizontal(previousX, movedX, previousY + height, width);
+        if (x[i] != movedX)
+            velocityX[i] = 0;
+        float floor = collisionResolver.highestTop(x[i], width);
+        if (y[i] + height > floor) {
+            y[i] = floor - height;
+            if (velocityY[i] > 0)
+                velocityY[i] = 0;
+        }
+        decide(i, deltaTime);
+
+        float movementY = Avatar.DOWN_VELOCITY_FACTOR;
+        // case on ground
+        boolean onGround = velocityY[i] == 0;
+        poses[i] = onGround ? (velocityX[i] != 0 ? WALKING : IDLE) : AIRBORNE;
+        if (poses[i] == IDLE)
+            flightEnergy[i] += Avatar.ENERGY_FACTOR;
+        // jump and flight
+        if (jumpIntents[i] || flightIntents[i]) {
+            if (flightIntents[i] && flightEnergy[i] > 0) {
+                movementY = -Avatar.FLIGHT_VELOCITY;
+                poses[i] = FLYING;
+                flightEnergy[i] -= Avatar.ENERGY_FACTOR;
+            } else if (onGround) {
+                movementY = -Avatar.JUMP_VELOCITY;
+                poses[i] = JUMPING;
+            }
+        }
+        // move to left or right
+        float movementX = 0;
+        if (directions[i] != 0) {
+            movementX = 2 * directions[i];
+            movementY *= 2;
+        }
+        velocityX[i] = movementX * Avatar.MOVEMENT_SPEED;
+        velocityY[i] = movementY * Avatar.MOVEMENT_SPEED;
+    }
+
+    /**
+     * Picks a new direction, and whether to jump or fly, when the current decision runs out.
+     * @param i index of agent
+     * @param deltaTime time since last update
+     */
+    private void decide(int i, float deltaTime) {
+        decisionTimers[i] -= deltaTime;
+        if (decisionTimers[i] > 0)
+            return;
+        SplittableRandom random = randoms[i];
+        decisionTimers[i] = MIN_DECISION_TIME + random.nextFloat() * (MAX_DECISION_TIME - MIN_DECISION_TIME);
+        directions[i] = (byte) (random.nextInt(3) - 1);
+        float action = random.nextFloat();
+        jumpIntents[i] = action < JUMP_PROBABILITY;
+        flightIntents[i] = !jumpIntents[i] && action < JUMP_PROBABILITY + FLIGHT_PROBABILITY;
+    }
+
+    /**
+     * Copies the position and pose of an agent to its avatar.
+     * @param i index of agent
+     */
+    private void commit(int i) {
+        Avatar avatar = avatars[i];
+        avatar.setTopLeftCorner(new Vector2(x[i], y[i]));
+        if (directions[i] != 0)
+            avatar.renderer().setIsFlippedHorizontally(directions[i] < 0);
+        switch (poses[i]) {
+            case IDLE:
+                avatar.switchIdle();
+                break;
+            case WALKING:
+                avatar.switchWalk();
+                break;
+            case JUMPING:
+                avatar.showJump();
+                break;
+            case FLYING:
+                avatar.showFlight();
+                break;
+            default:
+                if (jumpIntents[i] || flightIntents[i])
+                    avatar.resetAnimation();
+        }
+    }
+}
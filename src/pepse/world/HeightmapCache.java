@@ -0,0 +1,103 @@
+package pepse.world;
+
+import pepse.util.IntToFloatFunction;
+import pepse.world.chunks.WorldChunkManager;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of ground heights keyed by block column.
+ * The heights are kept in a ring buffer of primitive floats, so a window of consecutive columns that is
+ * smaller than the capacity slides over the buffer without evicting itself.
+ * A miss computes the heights of its whole chunk in one batch.
+ * Not thread safe, meant to be used from the game thread.
+ */
+public class HeightmapCache implements IntToFloatFunction {
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int FILL_COLUMNS = WorldChunkManager.CHUNK_COLUMNS;
+    private final Terrain terrain;
+    private final float[] fill = new float[FILL_COLUMNS];
+    private final float[] heights;
+    private final int[] columns;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor
+     * @param terrain terrain calculating the ground heights
+     * @param capacity number of columns that can be cached (at least CHUNK_COLUMNS)
+     */
+    public HeightmapCache(Terrain terrain, int capacity) {
+        this.terrain = terrain;
+        this.heights = new float[Math.max(capacity, FILL_COLUMNS)];
+        this.columns = new int[heights.length];
+        Arrays.fill(columns, EMPTY);
+    }
+
+    /**
+     * Returns the ground height at the column that contains the given X coordinate.
+     * @param x X coordinate
+     * @return ground height at the left edge of the column
+     */
+    @Override
+    public float applyAsFloat(int x) {
+        return heightAtColumn(Math.floorDiv(x, Block.SIZE));
+    }
+
+    /**
+     * Returns the ground height of a column, calculating It only if It is not cached.
+     * @param column index of column
+     * @return ground height at the left edge of the column
+     */
+    public float heightAtColumn(int column) {
+        int slot = Math.floorMod(column, columns.length);
+        if (columns[slot] == column) {
+            hits++;
+            return heights[slot];
+        }
+        misses++;
+        int firstColumn = column - Math.floorMod(column, FILL_COLUMNS);
+        terrain.groundHeightsFrom(firstColumn * Block.SIZE, fill);
+        for (int i = 0; i < FILL_COLUMNS; i++)
+            put(firstColumn + i, fill[i]);
+        return fill[column - firstColumn];
+    }
+
+    /**
+     * Stores an already known ground height of a column.
+     * @param column index of column
+     * @param height ground height at the left edge of the column
+     */
+    public void put(int column, float height) {
+        int slot = Math.floorMod(column, columns.length);
+        columns[slot] = column;
+        heights[slot] = height;
+    }
+
+    /**
+     * @return number of lookups that were answered from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups that had to calculate the height
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return part of lookups that were answered from the cache, between 0 and 1
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hit rate=%.1f%%", hits, misses, 100 * hitRate());
+    }
+}
@@ -1,11 +1,17 @@
 package pepse.world;
 
+import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.ImageRenderable;
 import danogl.util.Vector2;
-import pepse.util.ColorSupplier;
+import pepse.util.IntToFloatFunction;
 import pepse.util.PerlinNoise;
+import pepse.util.RenderablePalette;
+import pepse.world.chunks.ChunkData;
+import pepse.world.chunks.ColumnIndex;
+import pepse.world.chunks.WorldChunkManager;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 
 /**
  * Responsible for the creation and management of terrain.
@@ -15,10 +21,20 @@ public class Terrain {
     private static final int HALF_OF_WINDOW = 2;
     private final GameObjectCollection gameObjects;
     private final int groundLayer;
+    private final int undergroundLayer;
     private final int groundHeightAtX0;
     public int seed;
     private final PerlinNoise perlinNoise;
     private static final int TERRAIN_DEPTH = 20;
+    private static final int COLOR_VARIANTS = 16;
+    // rows kept above and below the camera, and the step the kept range moves in
+    private static final int VISIBLE_MARGIN = 2 * Block.SIZE;
+    private static final int VISIBLE_STEP = 4 * Block.SIZE;
+    private final RenderablePalette palette;
+    private final WorldObjectPool pool;
+    // range of Y coordinates the rows below the surface are created in, every row until It is first set
+    private int visibleTop = Integer.MIN_VALUE;
+    private int visibleBottom = Integer.MAX_VALUE;
 
     /**
      * Constructor
@@ -30,10 +46,30 @@ public class Terrain {
     public Terrain(GameObjectCollection gameObjects,
                    int groundLayer, Vector2 windowDimensions,
                    int seed) {
+        this(gameObjects, groundLayer, groundLayer, windowDimensions, seed, new WorldObjectPool());
+    }
+
+    /**
+     * Constructor for surface-only colliders: only the top block of every column is a collidable Block in
+     * the ground layer, the blocks below It are render-only objects in the underground layer.
+     * Passing the ground layer as the underground layer makes every block collidable.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param groundLayer - The number of the layer to which the created surface blocks should be added.
+     * @param undergroundLayer - The number of a non-colliding layer for the blocks below the surface.
+     * @param windowDimensions - The dimensions of the windows.
+     * @param seed - A seed for a random number generator.
+     * @param pool - The pool blocks are taken from.
+     */
+    public Terrain(GameObjectCollection gameObjects,
+                   int groundLayer, int undergroundLayer, Vector2 windowDimensions,
+                   int seed, WorldObjectPool pool) {
         this.gameObjects = gameObjects;
+        this.pool = pool;
         this.groundLayer = groundLayer;
+        this.undergroundLayer = undergroundLayer;
         this.seed = seed;
-        this.perlinNoise = new PerlinNoise(seed);
+        this.perlinNoise = PerlinNoise.create(seed);
+        this.palette = new RenderablePalette(BASE_GROUND_COLOR, COLOR_VARIANTS, seed);
         this.groundHeightAtX0 = (int)(windowDimensions.y() / HALF_OF_WINDOW);
     }
 
@@ -46,17 +82,194 @@ public class Terrain {
         return groundHeightAtX0 + perlinNoise.noise(x);
     }
 
+    /**
+     * This method returns the ground heights of consecutive columns, using a single batch of noise.
+     * @param minX X coordinate of the first column (a multiple of Block.SIZE)
+     * @param heights array to fill, heights[i] is the ground height at minX + i * Block.SIZE
+     */
+    public void groundHeightsFrom(int minX, float[] heights){
+        perlinNoise.noise(minX, Block.SIZE, heights);
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = groundHeightAtX0 + heights[i];
+        }
+    }
+
     /**
      * This method creates terrain in a given range of x-values.
      * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
+     * @param columnIndex - The index the created blocks are registered in.
      */
-    public void createInRange(int minX, int maxX){
-        for(int i = minX; i < maxX; i += Block.SIZE){
+    public void createInRange(int minX, int maxX, ColumnIndex columnIndex){
+        ChunkData data = new ChunkData(WorldChunkManager.chunkIndexAt(minX), minX,
+                (maxX - minX + Block.SIZE - 1) / Block.SIZE);
+        generate(data);
+        build(data, columnIndex);
+    }
+
+    /**
+     * Computes ground heights and terrain blocks of a chunk. Does not touch the game objects, and only reads
+     * the noise and the palette, which are never changed after construction (see PerlinNoise), so It is safe
+     * to call from any thread.
+     * @param data - The chunk data to fill.
+     */
+    public void generate(ChunkData data){
+        groundHeightsFrom(data.minX, data.groundHeights);
+        for (int column = 0; column < data.columns; column++) {
+            int x = data.columnX(column);
+            float height = data.groundHeights[column];
             for (int j = 0; j < Block.SIZE * TERRAIN_DEPTH; j += Block.SIZE) {
-                gameObjects.addGameObject(new Block(new Vector2(i, j + (int)groundHeightAt(i)),
-                        new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR))), groundLayer);
+                int y = j + (int)height;
+                data.ground.add(x, y, palette.variantAt(x, y));
             }
         }
     }
+
+    /**
+     * Adds the terrain blocks of a generated chunk to the game. Must be called from the game thread.
+     * @param data - The generated chunk data.
+     * @param columnIndex - The index the created blocks are registered in.
+     */
+    public void build(ChunkData data, ColumnIndex columnIndex){
+        if (undergroundLayer != groundLayer) {
+            buildStrip(data, columnIndex);
+            return;
+        }
+        ChunkData.Blocks ground = data.ground;
+        for (int i = 0; i < ground.size(); i++) {
+            // blocks are added column by column, top block first. The top block of every column is always
+            // created, the rows below It only if they can be seen
+            if (i % TERRAIN_DEPTH != 0 && !isVisible(ground.y(i)))
+                continue;
+            Block block = pool.obtainBlock(new Vector2(ground.x(i), ground.y(i)),
+                    palette.renderable(ground.variant(i)));
+            gameObjects.addGameObject(block, groundLayer);
+            columnIndex.add(ground.column(i), block, groundLayer);
+        }
+    }
+
+    /**
+     * Adds a chunk as an invisible collider on top of every column, and a single strip object that shows all
+     * its blocks. The strip is drawn once, at the full depth of the terrain, so moving the camera up and down
+     * never draws It again.
+     * @param data - The generated chunk data.
+     * @param columnIndex - The index the created objects are registered in.
+     */
+    private void buildStrip(ChunkData data, ColumnIndex columnIndex){
+        int firstColumn = Math.floorDiv(data.minX, Block.SIZE);
+        for (int column = 0; column < data.columns; column++) {
+            // the top block of a column, at the ground height cut to whole pixels like the ground blocks
+            Block collider = pool.obtainBlock(new Vector2(data.columnX(column), (int) data.groundHeights[column]),
+                    null);
+            gameObjects.addGameObject(collider, groundLayer);
+            columnIndex.add(firstColumn + column, collider, groundLayer);
+        }
+        ChunkData.Blocks ground = data.ground;
+        if (ground.size() == 0)
+            return;
+        int top = Integer.MAX_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int i = 0; i < ground.size(); i++) {
+            top = Math.min(top, (int) ground.y(i));
+            bottom = Math.max(bottom, (int) ground.y(i) + Block.SIZE);
+        }
+        int width = data.columns * Block.SIZE;
+        BufferedImage image = new BufferedImage(width, bottom - top, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < ground.size(); i++) {
+            graphics.setColor(palette.color(ground.variant(i)));
+            graphics.fillRect((int) ground.x(i) - data.minX, (int) ground.y(i) - top, Block.SIZE, Block.SIZE);
+        }
+        graphics.dispose();
+        GameObject strip = pool.obtainTile(new Vector2(data.minX, top), new ImageRenderable(image));
+        strip.setDimensions(new Vector2(width, bottom - top));
+        gameObjects.addGameObject(strip, undergroundLayer);
+        columnIndex.add(firstColumn, strip, undergroundLayer);
+    }
+
+    /**
+     * @return true if the blocks below the surface are drawn as one strip per chunk, which always shows every
+     * row, false if they are single blocks that follow the visible range (see setVisibleRange).
+     */
+    public boolean drawsStrips(){
+        return undergroundLayer != groundLayer;
+    }
+
+    /**
+     * Creates the rows below the surface only where they meet the given vertical range (usually that of the
+     * camera) and a margin, adding and removing rows of every built column as the range moves. The top block
+     * of a column is always kept, since It is the one that collides. Strips already show every row, so when
+     * the terrain draws strips nothing changes.
+     * The kept range moves in steps of several blocks, so small movements of the camera change nothing.
+     * @param top top of range
+     * @param bottom bottom of range
+     * @param groundHeightAt - Ground heights of the built columns (like a HeightmapCache the loaded chunks fill),
+     *                       so the surface of a column isn't computed from noise again.
+     * @param columnIndex - The index the blocks of built columns are registered in.
+     * @return number of rows that were added or removed
+     */
+    public int setVisibleRange(float top, float bottom, IntToFloatFunction groundHeightAt, ColumnIndex columnIndex){
+        if (drawsStrips())
+            return 0;
+        int newTop = Math.floorDiv((int) Math.floor(top) - VISIBLE_MARGIN, VISIBLE_STEP) * VISIBLE_STEP;
+        int newBottom = -Math.floorDiv(-(int) Math.ceil(bottom) - VISIBLE_MARGIN, VISIBLE_STEP) * VISIBLE_STEP;
+        if (newTop == visibleTop && newBottom == visibleBottom)
+            return 0;
+        int oldTop = visibleTop;
+        int oldBottom = visibleBottom;
+        visibleTop = newTop;
+        visibleBottom = newBottom;
+        int[] changed = new int[1];
+        columnIndex.forEachColumn(column ->
+                changed[0] += updateRows(column, oldTop, oldBottom, groundHeightAt, columnIndex));
+        return changed[0];
+    }
+
+    /**
+     * Removes the rows of a column that left the visible range and creates the ones that entered It.
+     * @param column index of column
+     * @param oldTop top of previous visible range
+     * @param oldBottom bottom of previous visible range
+     * @param groundHeightAt - Ground heights of the built columns.
+     * @param columnIndex - The index the blocks of the column are registered in.
+     * @return number of rows that were added or removed
+     */
+    private int updateRows(int column, int oldTop, int oldBottom, IntToFloatFunction groundHeightAt,
+                           ColumnIndex columnIndex){
+        int x = column * Block.SIZE;
+        int surface = (int) groundHeightAt.applyAsFloat(x);
+        int changed = columnIndex.removeIf(column, undergroundLayer,
+                block -> block.getTopLeftCorner().y() > surface && !isVisible((int) block.getTopLeftCorner().y()),
+                gameObjects, pool);
+        for (int j = 1; j < TERRAIN_DEPTH; j++) {
+            int y = surface + j * Block.SIZE;
+            if (!isVisible(y) || overlaps(y, oldTop, oldBottom))
+                continue;
+            Block block = pool.obtainBlock(new Vector2(x, y), palette.renderable(palette.variantAt(x, y)));
+            gameObjects.addGameObject(block, undergroundLayer);
+            columnIndex.add(column, block, undergroundLayer);
+            changed++;
+        }
+        return changed;
+    }
+
+    /**
+     * Checks if a row below the surface is in the visible range.
+     * @param y Y coordinate of the top of the row
+     * @return true if It is, false otherwise.
+     */
+    private boolean isVisible(float y){
+        return overlaps((int) y, visibleTop, visibleBottom);
+    }
+
+    /**
+     * Checks if a row overlaps a vertical range.
+     * @param y Y coordinate of the top of the row
+     * @param top top of range
+     * @param bottom bottom of range
+     * @return true if It does, false otherwise.
+     */
+    private static boolean overlaps(int y, int top, int bottom){
+        return y < bottom && y + Block.SIZE > top;
+    }
 }
@@ -0,0 +1,106 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+import pepse.util.IntToFloatFunction;
+
+/**
+ * Keeps a moving object out of the terrain and the tree trunks by querying the height of the columns under It,
+ * instead of colliding It with every loaded block.
+ * The top of a column is the ground height minus the height of the trunk that grows in It. Since the columns
+ * are solid from their top downwards, the cost of a query doesn't depend on how many blocks are loaded, and an
+ * object can't pass through the ground no matter how fast It moves.
+ */
+public class TerrainCollisionResolver {
+    // a column that is at most this much higher than the feet is climbed instead of blocking the way
+    private static final float STEP_HEIGHT = Block.SIZE / 2f;
+    private final IntToFloatFunction groundHeightAt;
+    private final IntToFloatFunction trunkHeightAt;
+
+    /**
+     * Constructor
+     * @param groundHeightAt function to calculating height of ground
+     * @param trunkHeightAt function to calculating height of the trunk in a column, 0 if there is no tree
+     */
+    public TerrainCollisionResolver(IntToFloatFunction groundHeightAt, IntToFloatFunction trunkHeightAt) {
+        this.groundHeightAt = groundHeightAt;
+        this.trunkHeightAt = trunkHeightAt;
+    }
+
+    /**
+     * Calculates the Y coordinate of the top of a column.
+     * @param column index of column
+     * @return Y coordinate of the highest solid point of the column
+     */
+    public float columnTop(int column) {
+        int x = column * Block.SIZE;
+        return (int) groundHeightAt.applyAsFloat(x) - trunkHeightAt.applyAsFloat(x);
+    }
+
+    /**
+     * Moves an object that just moved back out of the columns It entered.
+     * A column that is too high to step on stops the horizontal movement at its side, and the object then
+     * stands on the highest column under It.
+     * @param gameObject object that moved
+     * @param previousTopLeft top left corner of the object before It moved
+     */
+    public void resolve(GameObject gameObject, Vector2 previousTopLeft) {
+        Vector2 topLeft = gameObject.getTopLeftCorner();
+        Vector2 dimensions = gameObject.getDimensions();
+        float x = resolveHorizontal(previousTopLeft.x(), topLeft.x(), previousTopLeft.y() + dimensions.y(),
+                dimensions.x());
+        float floor = highestTop(x, dimensions.x());
+        float y = topLeft.y();
+        boolean blockedX = x != topLeft.x();
+        boolean landed = y + dimensions.y() > floor;
+        if (landed)
+            y = floor - dimensions.y();
+        if (!blockedX && !landed)
+            return;
+        gameObject.setTopLeftCorner(new Vector2(x, y));
+        Vector2 velocity = gameObject.getVelocity();
+        gameObject.setVelocity(new Vector2(blockedX ? 0 : velocity.x(),
+                landed && velocity.y() > 0 ? 0 : velocity.y()));
+    }
+
+    /**
+     * Walks over the columns between the previous and the new horizontal position, and stops in front of
+     * the first one that is too high to step on.
+     * @param fromX previous left edge of object
+     * @param toX new left edge of object
+     * @param bottom previous Y coordinate of the bottom of object
+     * @param width width of object
+     * @return resolved left edge of object
+     */
+    public float resolveHorizontal(float fromX, float toX, float bottom, float width) {
+        if (toX > fromX) {
+            int first = Math.floorDiv((int) Math.ceil(fromX + width), Block.SIZE);
+            int last = Math.floorDiv((int) Math.ceil(toX + width) - 1, Block.SIZE);
+            for (int column = first; column <= last; column++)
+                if (columnTop(column) < bottom - STEP_HEIGHT)
+                    return column * Block.SIZE - width;
+        } else if (toX < fromX) {
+            int first = Math.floorDiv((int) Math.floor(fromX), Block.SIZE) - 1;
+            int last = Math.floorDiv((int) Math.floor(toX), Block.SIZE);
+            for (int column = first; column >= last; column--)
+                if (columnTop(column) < bottom - STEP_HEIGHT)
+                    return (column + 1) * Block.SIZE;
+        }
+        return toX;
+    }
+
+    /**
+     * Finds the highest column top under a horizontal range.
+     * @param left left edge of range
+     * @param width width of range
+     * @return smallest Y coordinate of the tops of the columns in range
+     */
+    public float highestTop(float left, float width) {
+        int first = Math.floorDiv((int) Math.floor(left), Block.SIZE);
+        int last = Math.floorDiv((int) Math.ceil(left + width) - 1, Block.SIZE);
+        float top = Float.POSITIVE_INFINITY;
+        for (int column = first; column <= last; column++)
+            top = Math.min(top, columnTop(column));
+        return top;
+    }
+}
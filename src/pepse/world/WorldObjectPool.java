@@ -0,0 +1,86 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.ObjectPool;
+import pepse.world.trees.Leaf;
+
+/**
+ * Keeps the blocks, leaves and render-only tiles of unloaded chunks, so loading a chunk reuses them
+ * instead of allocating new game objects.
+ */
+public class WorldObjectPool {
+    private static final int MAX_POOL_SIZE = 4096;
+    private final ObjectPool<Block> blocks = new ObjectPool<>(MAX_POOL_SIZE);
+    private final ObjectPool<Leaf> leaves = new ObjectPool<>(MAX_POOL_SIZE);
+    private final ObjectPool<GameObject> tiles = new ObjectPool<>(MAX_POOL_SIZE);
+
+    /**
+     * Returns a block at the given position.
+     * @param topLeftCorner top left corner of block
+     * @param renderable rendering of block
+     * @return a reused or new block
+     */
+    public Block obtainBlock(Vector2 topLeftCorner, Renderable renderable) {
+        Block block = blocks.obtain();
+        if (block == null)
+            return new Block(topLeftCorner, renderable);
+        block.reset(topLeftCorner, renderable);
+        return block;
+    }
+
+    /**
+     * Returns a leaf at the given position.
+     * @param topLeftCorner top left corner of leaf
+     * @param renderable rendering of leaf
+     * @return a reused or new leaf
+     */
+    public Leaf obtainLeaf(Vector2 topLeftCorner, Renderable renderable) {
+        Leaf leaf = leaves.obtain();
+        if (leaf == null)
+            return new Leaf(topLeftCorner, renderable);
+        leaf.reset(topLeftCorner, renderable);
+        return leaf;
+    }
+
+    /**
+     * Returns a render-only object of the size of a block at the given position.
+     * @param topLeftCorner top left corner of tile
+     * @param renderable rendering of tile
+     * @return a reused or new tile
+     */
+    public GameObject obtainTile(Vector2 topLeftCorner, Renderable renderable) {
+        GameObject tile = tiles.obtain();
+        if (tile == null)
+            return new GameObject(topLeftCorner, Block.DIMENSIONS, renderable);
+        // a tile may have been used with other dimensions, like the canopy of a tree
+        tile.setDimensions(Block.DIMENSIONS);
+        tile.setTopLeftCorner(topLeftCorner);
+        tile.renderer().setRenderable(renderable);
+        return tile;
+    }
+
+    /**
+     * Returns an object that was removed from the game to its pool.
+     * @param gameObject a block, leaf or tile obtained from this pool
+     */
+    public void release(GameObject gameObject) {
+        // a pooled object mustn't keep the image of a chunk alive, like a baked strip or tree
+        gameObject.renderer().setRenderable(null);
+        if (gameObject instanceof Leaf) {
+            Leaf leaf = (Leaf) gameObject;
+            leaf.detach();
+            leaves.release(leaf);
+        } else if (gameObject instanceof Block) {
+            blocks.release((Block) gameObject);
+        } else {
+            tiles.release(gameObject);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "blocks: " + blocks + ", leaves: " + leaves + ", tiles: " + tiles;
+    }
+}
@@ -0,0 +1,130 @@
+package pepse.world.chunks;
+
+import pepse.world.Block;
+
+import java.util.Arrays;
+
+/**
+ * Holds everything that is needed to build a chunk, computed away from the game thread.
+ * Only primitive values are stored, so the data can be handed between threads safely.
+ */
+public class ChunkData {
+    private static final int INITIAL_CAPACITY = 32;
+    /** index of chunk on the x-axis */
+    public final int index;
+    /** X coordinate of the leftmost column */
+    public final int minX;
+    /** number of columns in chunk */
+    public final int columns;
+    /** ground height of every column */
+    public final float[] groundHeights;
+    /** blocks of terrain */
+    public final Blocks ground = new Blocks();
+    /** blocks of tree trunks */
+    public final Blocks trunks = new Blocks();
+    /** positions of leaves */
+    public final Blocks leaves = new Blocks();
+
+    /**
+     * Constructor
+     * @param index index of chunk on the x-axis
+     * @param minX X coordinate of the leftmost column
+     * @param columns number of columns in chunk
+     */
+    public ChunkData(int index, int minX, int columns) {
+        this.index = index;
+        this.minX = minX;
+        this.columns = columns;
+        this.groundHeights = new float[columns];
+    }
+
+    /**
+     * Returns X coordinate of the given column of chunk.
+     * @param column column inside the chunk
+     * @return X coordinate of column
+     */
+    public int columnX(int column) {
+        return minX + column * Block.SIZE;
+    }
+
+    /**
+     * A growable list of block positions, palette variants and the columns the blocks belong to.
+     */
+    public static class Blocks {
+        private float[] x = new float[INITIAL_CAPACITY];
+        private float[] y = new float[INITIAL_CAPACITY];
+        private int[] variants = new int[INITIAL_CAPACITY];
+        private int[] columns = new int[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * Adds a block that belongs to the column It is in.
+         * @param x X coordinate of top left corner
+         * @param y Y coordinate of top left corner
+         * @param variant palette variant of block
+         */
+        public void add(float x, float y, int variant) {
+            add(x, y, variant, Math.floorDiv((int) x, Block.SIZE));
+        }
+
+        /**
+         * Adds a block to the list.
+         * @param x X coordinate of top left corner
+         * @param y Y coordinate of top left corner
+         * @param variant palette variant of block
+         * @param column column the block belongs to
+         */
+        public void add(float x, float y, int variant, int column) {
+            if (size == this.x.length) {
+                this.x = Arrays.copyOf(this.x, size * 2);
+                this.y = Arrays.copyOf(this.y, size * 2);
+                variants = Arrays.copyOf(variants, size * 2);
+                columns = Arrays.copyOf(columns, size * 2);
+            }
+            this.x[size] = x;
+            this.y[size] = y;
+            variants[size] = variant;
+            columns[size] = column;
+            size++;
+        }
+
+        /**
+         * @return number of blocks in list
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param i index of block
+         * @return X coordinate of top left corner
+         */
+        public float x(int i) {
+            return x[i];
+        }
+
+        /**
+         * @param i index of block
+         * @return Y coordinate of top left corner
+         */
+        public float y(int i) {
+            return y[i];
+        }
+
+        /**
+         * @param i index of block
+         * @return palette variant of block
+         */
+        public int variant(int i) {
+            return variants[i];
+        }
+
+        /**
+         * @param i index of block
+         * @return column the block belongs to
+         */
+        public int column(int i) {
+            return columns[i];
+        }
+    }
+}
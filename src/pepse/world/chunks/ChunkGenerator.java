@@ -0,0 +1,184 @@
+package pepse.world.chunks;
+
+import pepse.diagnostics.ChunkGenerationEvent;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes chunk data on a pool of worker threads.
+ * Finished chunks are handed to the game thread through a bounded queue, the game objects themselves
+ * are only created by the game thread.
+ */
+public class ChunkGenerator {
+    private static final int HANDOFF_CAPACITY = 8;
+    private static final String THREAD_NAME = "chunk-generator-";
+    private final Terrain terrain;
+    private final Tree tree;
+    private final RegionStore regions;
+    private final ThreadPoolExecutor executor;
+    private final BlockingQueue<ChunkData> handoff = new ArrayBlockingQueue<>(HANDOFF_CAPACITY);
+    // accessed from the game thread only
+    private final Map<Integer, GenerationTask> pending = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param terrain terrain to generate
+     * @param tree trees to generate
+     */
+    public ChunkGenerator(Terrain terrain, Tree tree) {
+        this(terrain, tree, null);
+    }
+
+    /**
+     * Constructor
+     * @param terrain terrain to generate
+     * @param tree trees to generate
+     * @param regions pregenerated regions chunks are read from when present, null to always generate
+     */
+    public ChunkGenerator(Terrain terrain, Tree tree, RegionStore regions) {
+        this.terrain = terrain;
+        this.tree = tree;
+        this.regions = regions;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Computes the data of a chunk on the calling thread, or reads It if its region was pregenerated.
+     * @param index index of chunk
+     * @return data of chunk
+     */
+    public ChunkData generate(int index) {
+        ChunkGenerationEvent event = new ChunkGenerationEvent();
+        event.begin();
+        ChunkData data = regions == null ? null : regions.read(index);
+        boolean fromRegion = data != null;
+        if (!fromRegion)
+            data = generate(terrain, tree, index);
+        if (event.shouldCommit()) {
+            event.fromRegion = fromRegion;
+            event.chunk = index;
+            event.minColumn = index * WorldChunkManager.CHUNK_COLUMNS;
+            event.maxColumn = event.minColumn + data.columns - 1;
+            event.groundBlocks = data.ground.size();
+            event.trunkBlocks = data.trunks.size();
+            event.leaves = data.leaves.size();
+            event.commit();
+        }
+        return data;
+    }
+
+    /**
+     * Computes the data of a chunk from noise and seed on the calling thread.
+     * @param terrain terrain to generate
+     * @param tree trees to generate
+     * @param index index of chunk
+     * @return data of chunk
+     */
+    public static ChunkData generate(Terrain terrain, Tree tree, int index) {
+        ChunkData data = new ChunkData(index, index * WorldChunkManager.CHUNK_WIDTH,
+                WorldChunkManager.CHUNK_COLUMNS);
+        terrain.generate(data);
+        tree.generate(data);
+        return data;
+    }
+
+    /**
+     * Schedules a chunk for generation on the worker pool, unless It is already scheduled.
+     * @param index index of chunk
+     * @param priority lower values are generated first
+     */
+    public void request(int index, int priority) {
+        if (pending.containsKey(index))
+            return;
+        GenerationTask task = new GenerationTask(index, priority);
+        pending.put(index, task);
+        executor.execute(task);
+    }
+
+    /**
+     * Drops the scheduled generation of a chunk if It did not start yet, so a chunk generated on the
+     * calling thread isn't generated by a worker too.
+     * @param index index of chunk
+     */
+    public void cancel(int index) {
+        GenerationTask task = pending.get(index);
+        if (task != null && executor.remove(task))
+            pending.remove(index);
+    }
+
+    /**
+     * Drops scheduled chunks that did not start yet and are outside the given range.
+     * @param minIndex lowest index to keep
+     * @param maxIndex highest index to keep
+     */
+    public void cancelOutside(int minIndex, int maxIndex) {
+        Iterator<GenerationTask> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            GenerationTask task = iterator.next();
+            if ((task.index < minIndex || task.index > maxIndex) && executor.remove(task))
+                iterator.remove();
+        }
+    }
+
+    /**
+     * Returns a chunk that finished generating, if there is one.
+     * @return data of a generated chunk or null.
+     */
+    public ChunkData poll() {
+        ChunkData data = handoff.poll();
+        if (data != null)
+            pending.remove(data.index);
+        return data;
+    }
+
+    /**
+     * Stops all worker threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Generates a single chunk and hands It over to the game thread.
+     */
+    private class GenerationTask implements Runnable, Comparable<GenerationTask> {
+        private final int index;
+        private final int priority;
+
+        private GenerationTask(int index, int priority) {
+            this.index = index;
+            this.priority = priority;
+        }
+
+        @Override
+        public void run() {
+            try {
+                handoff.put(generate(index));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public int compareTo(GenerationTask other) {
+            return Integer.compare(priority, other.priority);
+        }
+    }
+}
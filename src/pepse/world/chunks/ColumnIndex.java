@@ -0,0 +1,202 @@
+package pepse.world.chunks;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import pepse.world.WorldObjectPool;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Indexes the static objects of the world (terrain, trunks and leaves) by the column they were created for.
+ * Terrain and trunk blocks belong to their own column, and leaves belong to the column of their trunk, so
+ * removing a range of columns removes whole trees.
+ * Must only be used from the game thread.
+ */
+public class ColumnIndex {
+    private static final int INITIAL_CAPACITY = 32;
+    private final Map<Integer, Bucket> buckets = new HashMap<>();
+    private final ArrayDeque<Bucket> freeBuckets = new ArrayDeque<>();
+    private int size;
+
+    /**
+     * Registers an object that was added to the game in the given layer.
+     * @param column column the object belongs to
+     * @param gameObject object to register
+     * @param layer layer the object was added to
+     */
+    public void add(int column, GameObject gameObject, int layer) {
+        Bucket bucket = buckets.get(column);
+        if (bucket == null) {
+            bucket = freeBuckets.isEmpty() ? new Bucket() : freeBuckets.pop();
+            buckets.put(column, bucket);
+        }
+        bucket.add(gameObject, layer);
+        size++;
+    }
+
+    /**
+     * @return number of registered objects
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param column index of column
+     * @return number of objects that belong to the column
+     */
+    public int count(int column) {
+        Bucket bucket = buckets.get(column);
+        return bucket == null ? 0 : bucket.size;
+    }
+
+    /**
+     * @param column index of column
+     * @param i index of object inside the column, less than count(column)
+     * @return object of the column
+     */
+    public GameObject get(int column, int i) {
+        return buckets.get(column).objects[i];
+    }
+
+    /**
+     * @param column index of column
+     * @param i index of object inside the column, less than count(column)
+     * @return layer of the object
+     */
+    public int layer(int column, int i) {
+        return buckets.get(column).layers[i];
+    }
+
+    /**
+     * Checks if a column has an object in the given layer.
+     * @param column index of column
+     * @param layer layer to look for
+     * @return true if there is, false otherwise.
+     */
+    public boolean contains(int column, int layer) {
+        Bucket bucket = buckets.get(column);
+        if (bucket == null)
+            return false;
+        for (int i = 0; i < bucket.size; i++)
+            if (bucket.layers[i] == layer)
+                return true;
+        return false;
+    }
+
+    /**
+     * Runs an action on every object of a range of columns.
+     * @param minColumn first column of range
+     * @param maxColumn last column of range (inclusive)
+     * @param action action to run
+     */
+    public void forEach(int minColumn, int maxColumn, Consumer<GameObject> action) {
+        for (int column = minColumn; column <= maxColumn; column++) {
+            Bucket bucket = buckets.get(column);
+            if (bucket == null)
+                continue;
+            for (int i = 0; i < bucket.size; i++)
+                action.accept(bucket.objects[i]);
+        }
+    }
+
+    /**
+     * Runs an action on every column that has objects.
+     * @param action action to run on the index of column
+     */
+    public void forEachColumn(IntConsumer action) {
+        for (int column : buckets.keySet())
+            action.accept(column);
+    }
+
+    /**
+     * Removes the objects of a column in the given layer that match a filter from the game, and returns them
+     * to the pool.
+     * @param column index of column
+     * @param layer layer of the objects to remove
+     * @param filter filter of the objects to remove
+     * @param gameObjects game object collection
+     * @param pool pool the objects are returned to
+     * @return number of removed objects
+     */
+    public int removeIf(int column, int layer, Predicate<GameObject> filter, GameObjectCollection gameObjects,
+                        WorldObjectPool pool) {
+        Bucket bucket = buckets.get(column);
+        if (bucket == null)
+            return 0;
+        int removed = 0;
+        int i = 0;
+        while (i < bucket.size) {
+            if (bucket.layers[i] == layer && filter.test(bucket.objects[i])) {
+                gameObjects.removeGameObject(bucket.objects[i], layer);
+                pool.release(bucket.objects[i]);
+                bucket.removeAt(i);
+                removed++;
+            } else {
+                i++;
+            }
+        }
+        size -= removed;
+        return removed;
+    }
+
+    /**
+     * Removes every object of a range of columns from the game and returns It to the pool.
+     * @param minColumn first column of range
+     * @param maxColumn last column of range (inclusive)
+     * @param gameObjects game object collection
+     * @param pool pool the objects are returned to
+     * @return number of removed objects
+     */
+    public int removeRange(int minColumn, int maxColumn, GameObjectCollection gameObjects, WorldObjectPool pool) {
+        int removed = 0;
+        for (int column = minColumn; column <= maxColumn; column++) {
+            Bucket bucket = buckets.remove(column);
+            if (bucket == null)
+                continue;
+            for (int i = 0; i < bucket.size; i++) {
+                gameObjects.removeGameObject(bucket.objects[i], bucket.layers[i]);
+                pool.release(bucket.objects[i]);
+                bucket.objects[i] = null;
+            }
+            removed += bucket.size;
+            bucket.size = 0;
+            freeBuckets.push(bucket);
+        }
+        size -= removed;
+        return removed;
+    }
+
+    /**
+     * The objects of a single column and the layers they were added to.
+     */
+    private static class Bucket {
+        private GameObject[] objects = new GameObject[INITIAL_CAPACITY];
+        private int[] layers = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(GameObject gameObject, int layer) {
+            if (size == objects.length) {
+                objects = Arrays.copyOf(objects, size * 2);
+                layers = Arrays.copyOf(layers, size * 2);
+            }
+            objects[size] = gameObject;
+            layers[size] = layer;
+            size++;
+        }
+
+        private void removeAt(int i) {
+            // the last object takes the place of the removed one
+            size--;
+            objects[i] = objects[size];
+            layers[i] = layers[size];
+            objects[size] = null;
+        }
+    }
+}
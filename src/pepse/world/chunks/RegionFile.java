@@ -0,0 +1,190 @@
+package pepse.world.chunks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file with the pregenerated data of REGION_CHUNKS consecutive chunks of one world.
+ * The file starts with a header (magic number, version, seed, window height, first chunk, number of chunks and
+ * the offset of every chunk). Every chunk is stored as primitive arrays: the ground heights of its columns,
+ * followed by the ground blocks, trunk blocks and leaves, each as a count and arrays of x, y, column and
+ * palette variant. Files are read through a memory mapping, so only the pages of the chunks that are used
+ * are loaded from disk.
+ */
+public class RegionFile {
+    public static final int REGION_CHUNKS = 16;
+    private static final int MAGIC = 0x50455053;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+    private final ByteBuffer buffer;
+    private final int seed;
+    private final float windowHeight;
+    private final int firstChunk;
+    private final int chunkCount;
+
+    private RegionFile(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION)
+            throw new IOException("not a region file of version " + VERSION);
+        this.buffer = buffer;
+        this.seed = buffer.getInt(2 * Integer.BYTES);
+        this.windowHeight = buffer.getFloat(3 * Integer.BYTES);
+        this.firstChunk = buffer.getInt(4 * Integer.BYTES);
+        this.chunkCount = buffer.getInt(5 * Integer.BYTES);
+    }
+
+    /**
+     * Returns index of the region that contains the given chunk.
+     * @param chunkIndex index of chunk
+     * @return index of region
+     */
+    public static int regionIndexOf(int chunkIndex) {
+        return Math.floorDiv(chunkIndex, REGION_CHUNKS);
+    }
+
+    /**
+     * Maps a region file to memory.
+     * @param path path of file
+     * @return the region file
+     * @throws IOException if the file can't be read or is not a region file
+     */
+    public static RegionFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RegionFile(buffer);
+        }
+    }
+
+    /**
+     * Writes the data of consecutive chunks to a region file. The file is written next to its destination
+     * and then moved over It, so a reader never sees half of a file.
+     * @param path path of file
+     * @param seed seed the chunks were generated with
+     * @param windowHeight height of the window the terrain was generated for
+     * @param chunks data of consecutive chunks, starting at the first chunk of the region
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Path path, int seed, float windowHeight, ChunkData[] chunks) throws IOException {
+        int size = (HEADER_INTS + chunks.length) * Integer.BYTES;
+        for (ChunkData data : chunks)
+            size += chunkSize(data);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(seed).putFloat(windowHeight)
+                .putInt(chunks[0].index).putInt(chunks.length);
+        int offset = (HEADER_INTS + chunks.length) * Integer.BYTES;
+        for (ChunkData data : chunks) {
+            buffer.putInt(offset);
+            offset += chunkSize(data);
+        }
+        for (ChunkData data : chunks) {
+            buffer.putInt(data.columns);
+            for (float height : data.groundHeights)
+                buffer.putFloat(height);
+            writeBlocks(buffer, data.ground);
+            writeBlocks(buffer, data.trunks);
+            writeBlocks(buffer, data.leaves);
+        }
+        buffer.flip();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Checks if the region was generated for the given world.
+     * @param seed seed of world
+     * @param windowHeight height of the window of world
+     * @return true if It was, false otherwise.
+     */
+    public boolean matches(int seed, float windowHeight) {
+        return this.seed == seed && this.windowHeight == windowHeight;
+    }
+
+    /**
+     * Reads the data of a chunk. Safe to call from any thread.
+     * @param index index of chunk
+     * @return data of chunk, null if the chunk is not in this region
+     */
+    public ChunkData read(int index) {
+        if (index < firstChunk || index >= firstChunk + chunkCount)
+            return null;
+        // a duplicate has its own position, so threads don't disturb each other
+        ByteBuffer chunk = buffer.duplicate();
+        chunk.position(buffer.getInt((HEADER_INTS + index - firstChunk) * Integer.BYTES));
+        int columns = chunk.getInt();
+        ChunkData data = new ChunkData(index, index * WorldChunkManager.CHUNK_WIDTH, columns);
+        FloatBuffer heights = chunk.asFloatBuffer();
+        heights.get(data.groundHeights);
+        chunk.position(chunk.position() + columns * Float.BYTES);
+        readBlocks(chunk, data.ground);
+        readBlocks(chunk, data.trunks);
+        readBlocks(chunk, data.leaves);
+        return data;
+    }
+
+    /**
+     * Calculates the number of bytes a chunk takes.
+     * @param data data of chunk
+     * @return size of chunk in bytes
+     */
+    private static int chunkSize(ChunkData data) {
+        return Integer.BYTES + data.columns * Float.BYTES + blocksSize(data.ground) + blocksSize(data.trunks)
+                + blocksSize(data.leaves);
+    }
+
+    /**
+     * Calculates the number of bytes a list of blocks takes.
+     * @param blocks list of blocks
+     * @return size of list in bytes
+     */
+    private static int blocksSize(ChunkData.Blocks blocks) {
+        return Integer.BYTES + blocks.size() * (2 * Float.BYTES + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Writes a list of blocks as a count followed by an array for every field.
+     * @param buffer buffer to write to
+     * @param blocks list of blocks
+     */
+    private static void writeBlocks(ByteBuffer buffer, ChunkData.Blocks blocks) {
+        int size = blocks.size();
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++)
+            buffer.putFloat(blocks.x(i));
+        for (int i = 0; i < size; i++)
+            buffer.putFloat(blocks.y(i));
+        for (int i = 0; i < size; i++)
+            buffer.putInt(blocks.column(i));
+        for (int i = 0; i < size; i++)
+            buffer.putInt(blocks.variant(i));
+    }
+
+    /**
+     * Reads a list of blocks written by writeBlocks.
+     * @param buffer buffer positioned at the list
+     * @param blocks list to add the blocks to
+     */
+    private static void readBlocks(ByteBuffer buffer, ChunkData.Blocks blocks) {
+        int size = buffer.getInt();
+        int start = buffer.position();
+        FloatBuffer x = buffer.position(start).slice().asFloatBuffer();
+        FloatBuffer y = buffer.position(start + size * Float.BYTES).slice().asFloatBuffer();
+        IntBuffer columns = buffer.position(start + 2 * size * Float.BYTES).slice().asIntBuffer();
+        IntBuffer variants = buffer.position(start + 2 * size * Float.BYTES + size * Integer.BYTES)
+                .slice().asIntBuffer();
+        for (int i = 0; i < size; i++)
+            blocks.add(x.get(i), y.get(i), variants.get(i), columns.get(i));
+        buffer.position(start + size * (2 * Float.BYTES + 2 * Integer.BYTES));
+    }
+}
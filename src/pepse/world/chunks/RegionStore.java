@@ -0,0 +1,72 @@
+package pepse.world.chunks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A directory of pregenerated region files of one world.
+ * Regions are opened the first time one of their chunks is needed. A region that is missing, unreadable or
+ * generated for another world is remembered as missing, and its chunks are generated live.
+ * Safe to use from any thread.
+ */
+public class RegionStore {
+    private static final String FILE_NAME = "region.%d.%d.bin";
+    private final Path directory;
+    private final int seed;
+    private final float windowHeight;
+    private final Map<Integer, Optional<RegionFile>> regions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * @param directory directory of region files
+     * @param seed seed of world
+     * @param windowHeight height of the window of world
+     */
+    public RegionStore(Path directory, int seed, float windowHeight) {
+        this.directory = directory;
+        this.seed = seed;
+        this.windowHeight = windowHeight;
+    }
+
+    /**
+     * Returns path of the file of a region.
+     * @param directory directory of region files
+     * @param seed seed of world
+     * @param region index of region
+     * @return path of region file
+     */
+    public static Path pathOf(Path directory, int seed, int region) {
+        return directory.resolve(String.format(FILE_NAME, seed, region));
+    }
+
+    /**
+     * Reads the data of a chunk if its region was pregenerated.
+     * @param index index of chunk
+     * @return data of chunk, null if It has to be generated
+     */
+    public ChunkData read(int index) {
+        Optional<RegionFile> region = regions.computeIfAbsent(RegionFile.regionIndexOf(index), this::open);
+        return region.map(file -> file.read(index)).orElse(null);
+    }
+
+    /**
+     * Opens the file of a region.
+     * @param region index of region
+     * @return the region file, empty if there is no usable file
+     */
+    private Optional<RegionFile> open(int region) {
+        Path path = pathOf(directory, seed, region);
+        if (!Files.isReadable(path))
+            return Optional.empty();
+        try {
+            RegionFile file = RegionFile.open(path);
+            return file.matches(seed, windowHeight) ? Optional.of(file) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package pepse.world.chunks;
+
+import danogl.collisions.GameObjectCollection;
+import pepse.diagnostics.ChunkLoadEvent;
+import pepse.diagnostics.ChunkUnloadEvent;
+import pepse.world.Block;
+import pepse.world.HeightmapCache;
+import pepse.world.Terrain;
+import pepse.world.WorldObjectPool;
+import pepse.world.trees.Tree;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the infinite world bounded by loading and unloading whole chunks around a given x coordinate.
+ * The x-axis is split into chunks of CHUNK_COLUMNS columns, each one Block.SIZE wide.
+ * Chunk data is computed in the background, prefetching ahead in the direction of movement, and only
+ * chunks that are about to become visible before their data is ready are generated on the game thread.
+ * Chunks are loaded nearest first, and chunks that aren't visible yet are only loaded while the frame budget
+ * lasts, so a long flight spreads the creation of objects over several frames.
+ */
+public class WorldChunkManager {
+    public static final int CHUNK_COLUMNS = 8;
+    public static final int CHUNK_WIDTH = CHUNK_COLUMNS * Block.SIZE;
+    private static final int PREFETCH_CHUNKS = 3;
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 2_000_000;
+    private final GameObjectCollection gameObjects;
+    private final Terrain terrain;
+    private final Tree tree;
+    private final HeightmapCache heightmap;
+    private final WorldObjectPool pool;
+    private final ChunkGenerator generator;
+    private final float loadDistance;
+    private final float visibleDistance;
+    private final ColumnIndex columnIndex = new ColumnIndex();
+    private final Set<Integer> loadedChunks = new HashSet<>();
+    private final Map<Integer, ChunkData> readyChunks = new HashMap<>();
+    private long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+    private boolean deterministic;
+    // chunk ranges of the current update
+    private int centerChunk;
+    private int minChunk;
+    private int maxChunk;
+    private int minVisibleChunk;
+    private int maxVisibleChunk;
+    private int minPrefetchChunk;
+    private int maxPrefetchChunk;
+    private int direction;
+
+    /**
+     * Constructor
+     * @param gameObjects game object collection
+     * @param terrain terrain to create in loaded chunks
+     * @param tree trees to create in loaded chunks
+     * @param heightmap cache that is filled with the ground heights of loaded chunks
+     * @param pool pool the objects of unloaded chunks are returned to
+     * @param loadDistance distance (in pixels) to each side of the center that must be loaded
+     * @param visibleDistance distance (in pixels) to each side of the center that can be seen
+     */
+    public WorldChunkManager(GameObjectCollection gameObjects, Terrain terrain, Tree tree, HeightmapCache heightmap,
+                             WorldObjectPool pool, float loadDistance, float visibleDistance) {
+        this(gameObjects, terrain, tree, heightmap, pool, loadDistance, visibleDistance, null);
+    }
+
+    /**
+     * Constructor
+     * @param gameObjects game object collection
+     * @param terrain terrain to create in loaded chunks
+     * @param tree trees to create in loaded chunks
+     * @param heightmap cache that is filled with the ground heights of loaded chunks
+     * @param pool pool the objects of unloaded chunks are returned to
+     * @param loadDistance distance (in pixels) to each side of the center that must be loaded
+     * @param visibleDistance distance (in pixels) to each side of the center that can be seen
+     * @param regions pregenerated regions chunks are read from when present, null to always generate
+     */
+    public WorldChunkManager(GameObjectCollection gameObjects, Terrain terrain, Tree tree, HeightmapCache heightmap,
+                             WorldObjectPool pool, float loadDistance, float visibleDistance, RegionStore regions) {
+        this.gameObjects = gameObjects;
+        this.terrain = terrain;
+        this.tree = tree;
+        this.heightmap = heightmap;
+        this.pool = pool;
+        this.loadDistance = loadDistance;
+        this.visibleDistance = visibleDistance;
+        this.generator = new ChunkGenerator(terrain, tree, regions);
+    }
+
+    /**
+     * Returns index of the chunk that contains the given x coordinate.
+     * @param x X coordinate
+     * @return index of chunk
+     */
+    public static int chunkIndexAt(float x) {
+        return Math.floorDiv((int) Math.floor(x), CHUNK_WIDTH);
+    }
+
+    /**
+     * @return index of the objects of all loaded chunks by column
+     */
+    public ColumnIndex getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * Sets the time each update may spend on loading chunks that are not visible yet.
+     * Visible chunks are always loaded, even if the budget is used up.
+     * @param frameBudgetNanos budget in nanoseconds
+     */
+    public void setFrameBudget(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Makes the loaded chunks depend on the centers of the updates alone: every chunk is loaded in the update
+     * It enters the range, generating It on the game thread if no worker finished It, regardless of the frame
+     * budget. Replays of the same movement then create the same objects in the same frames.
+     * @param deterministic true to load every chunk in range immediately, false to respect the frame budget
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * @return number of chunks that are currently loaded
+     */
+    public int loadedChunkCount() {
+        return loadedChunks.size();
+    }
+
+    /**
+     * @return number of game objects that belong to loaded chunks
+     */
+    public int loadedObjectCount() {
+        return columnIndex.size();
+    }
+
+    /**
+     * Loads every chunk within the load distance of the given center and unloads every other chunk.
+     * @param centerX X coordinate the world is built around (usually the avatar)
+     * @param velocityX horizontal velocity of the center, used for prefetching
+     */
+    public void update(float centerX, float velocityX) {
+        long frameStart = System.nanoTime();
+        centerChunk = chunkIndexAt(centerX);
+        minChunk = chunkIndexAt(centerX - loadDistance);
+        maxChunk = chunkIndexAt(centerX + loadDistance);
+        minVisibleChunk = chunkIndexAt(centerX - visibleDistance);
+        maxVisibleChunk = chunkIndexAt(centerX + visibleDistance);
+        direction = (int) Math.signum(velocityX);
+        minPrefetchChunk = direction < 0 ? minChunk - PREFETCH_CHUNKS : minChunk;
+        maxPrefetchChunk = direction > 0 ? maxChunk + PREFETCH_CHUNKS : maxChunk;
+
+        // unload chunks that left the range
+        Iterator<Integer> loaded = loadedChunks.iterator();
+        while (loaded.hasNext()) {
+            int index = loaded.next();
+            if (index < minChunk || index > maxChunk) {
+                unload(index);
+                loaded.remove();
+            }
+        }
+        // collect chunks that finished generating and forget the ones that are no longer needed
+        ChunkData data;
+        while ((data = generator.poll()) != null) {
+            if (data.index >= minPrefetchChunk && data.index <= maxPrefetchChunk
+                    && !loadedChunks.contains(data.index))
+                readyChunks.put(data.index, data);
+        }
+        readyChunks.keySet().removeIf(index -> index < minPrefetchChunk || index > maxPrefetchChunk);
+        generator.cancelOutside(minPrefetchChunk, maxPrefetchChunk);
+
+        // load chunks that entered the range nearest first, request the rest from the generator
+        long deadline = frameStart + frameBudgetNanos;
+        int sign = direction < 0 ? -1 : 1;
+        int maxDistance = Math.max(maxPrefetchChunk - centerChunk, centerChunk - minPrefetchChunk);
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            // at the same distance the chunk in the direction of movement comes first
+            load(centerChunk + sign * distance, deadline);
+            if (distance != 0)
+                load(centerChunk - sign * distance, deadline);
+        }
+    }
+
+    /**
+     * Loads a chunk of the current range if It is not loaded yet. A visible chunk is always loaded, generating
+     * It on the game thread if needed. Any other chunk is only loaded if its data is ready and the frame budget
+     * isn't used up, otherwise It waits for a later frame.
+     * @param index index of chunk
+     * @param deadline value of System.nanoTime() after which only visible chunks are loaded
+     */
+    private void load(int index, long deadline) {
+        if (index < minPrefetchChunk || index > maxPrefetchChunk || loadedChunks.contains(index))
+            return;
+        boolean inRange = index >= minChunk && index <= maxChunk;
+        boolean visible = index >= minVisibleChunk && index <= maxVisibleChunk;
+        boolean needed = visible || deterministic;
+        ChunkData ready = readyChunks.get(index);
+        if (inRange && ready != null && (needed || System.nanoTime() < deadline)) {
+            readyChunks.remove(index);
+            commit(ready, true);
+        } else if (inRange && needed) {
+            // needed this frame, can't wait for the workers
+            generator.cancel(index);
+            commit(generator.generate(index), false);
+        } else if (ready == null) {
+            generator.request(index, priority(index, centerChunk, direction));
+        }
+    }
+
+    /**
+     * Stops the background generation of chunks.
+     */
+    public void shutdown() {
+        generator.shutdown();
+    }
+
+    /**
+     * Calculates the generation priority of a chunk: closer chunks come first, and chunks in the direction
+     * of movement come before chunks at the same distance behind.
+     * @param index index of chunk
+     * @param centerChunk index of the chunk at the center
+     * @param direction direction of movement (-1, 0 or 1)
+     * @return priority of chunk, lower is generated first
+     */
+    private static int priority(int index, int centerChunk, int direction) {
+        int offset = index - centerChunk;
+        int priority = 2 * Math.abs(offset);
+        if (direction != 0 && Integer.signum(offset) == -direction)
+            priority++;
+        return priority;
+    }
+
+    /**
+     * Creates the game objects of a generated chunk.
+     * @param data data of chunk
+     * @param prefetched whether the data was generated in the background
+     */
+    private void commit(ChunkData data, boolean prefetched) {
+        ChunkLoadEvent event = new ChunkLoadEvent();
+        event.begin();
+        int firstColumn = data.index * CHUNK_COLUMNS;
+        for (int column = 0; column < data.columns; column++)
+            heightmap.put(firstColumn + column, data.groundHeights[column]);
+        int before = columnIndex.size();
+        terrain.build(data, columnIndex);
+        int afterTerrain = columnIndex.size();
+        tree.build(data, columnIndex);
+        loadedChunks.add(data.index);
+        if (event.shouldCommit()) {
+            event.chunk = data.index;
+            event.minColumn = firstColumn;
+            event.maxColumn = firstColumn + data.columns - 1;
+            event.terrainObjects = afterTerrain - before;
+            event.treeObjects = columnIndex.size() - afterTerrain;
+            event.prefetched = prefetched;
+            event.commit();
+        }
+    }
+
+    /**
+     * Removes the game objects of a loaded chunk.
+     * @param index index of chunk
+     */
+    private void unload(int index) {
+        ChunkUnloadEvent event = new ChunkUnloadEvent();
+        event.begin();
+        int firstColumn = index * CHUNK_COLUMNS;
+        tree.unload(firstColumn, firstColumn + CHUNK_COLUMNS - 1);
+        int removed = columnIndex.removeRange(firstColumn, firstColumn + CHUNK_COLUMNS - 1, gameObjects, pool);
+        if (event.shouldCommit()) {
+            event.chunk = index;
+            event.minColumn = firstColumn;
+            event.maxColumn = firstColumn + CHUNK_COLUMNS - 1;
+            event.objects = removed;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package pepse.world.daynight;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.util.Vector2;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * Drives the sun, its halo and the night from a single clock.
+ * Positions of the sun and opaqueness of the night are looked up in tables that are computed once, so a frame
+ * neither calls sin and cos nor allocates. The tables hold top left corners, since setting a center computes
+ * a new corner. Other systems can read the time of day instead of keeping timers.
+ */
+public class DayNightCycle {
+    // a power of two, with about two steps for every frame of a cycle of 30 seconds at 70 frames per second
+    private static final int STEPS = 4096;
+    private static final float HALF = 0.5f;
+    private final GameObject sun;
+    private final GameObject sunHalo;
+    private final GameObject night;
+    private final float cycleLength;
+    private final Vector2[] sunCorners = new Vector2[STEPS];
+    private final Vector2[] sunHaloCorners = new Vector2[STEPS];
+    private final float[] nightOpacities = new float[STEPS];
+    private float time;
+    private int step = -1;
+
+    private DayNightCycle(GameObject sun, GameObject sunHalo, GameObject night, Vector2 windowDimensions,
+                          float cycleLength) {
+        this.sun = sun;
+        this.sunHalo = sunHalo;
+        this.night = night;
+        this.cycleLength = cycleLength;
+        for (int i = 0; i < STEPS; i++) {
+            float timeOfDay = (float) i / STEPS;
+            Vector2 center = Sun.calcSunPosition(windowDimensions, cycleLength, timeOfDay);
+            sunCorners[i] = center.subtract(sun.getDimensions().mult(HALF));
+            sunHaloCorners[i] = center.subtract(sunHalo.getDimensions().mult(HALF));
+            nightOpacities[i] = Night.opacityAt(timeOfDay);
+        }
+        apply();
+    }
+
+    /**
+     * This function creates a night, a sun and a sun halo that are moved by the created cycle. Unlike the
+     * objects created by Night, Sun and SunHalo, they have no components, so the cycle has to be updated
+     * every frame.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param nightLayer - The number of the layer to which the night should be added.
+     * @param sunLayer - The number of the layer to which the sun should be added.
+     * @param sunHaloLayer - The number of the layer to which the sun halo should be added.
+     * @param windowDimensions - The dimensions of the windows.
+     * @param cycleLength - The amount of seconds it should take to complete a full cycle.
+     * @param sunHaloColor - The color of the halo.
+     * @param random - Random generator the color of the night is taken from.
+     * @return A new day and night cycle, at noon.
+     */
+    public static DayNightCycle create(GameObjectCollection gameObjects, int nightLayer, int sunLayer,
+                                       int sunHaloLayer, Vector2 windowDimensions, float cycleLength,
+                                       Color sunHaloColor, Random random) {
+        GameObject night = Night.createBody(gameObjects, nightLayer, windowDimensions, random);
+        GameObject sun = Sun.createBody(gameObjects, sunLayer);
+        GameObject sunHalo = SunHalo.createBody(gameObjects, sunHaloLayer, sunHaloColor);
+        return new DayNightCycle(sun, sunHalo, night, windowDimensions, cycleLength);
+    }
+
+    /**
+     * Advances the clock, and moves the sun and its halo and darkens the night accordingly.
+     * @param deltaTime seconds since last update
+     */
+    public void update(float deltaTime) {
+        time += deltaTime;
+        if (time >= cycleLength)
+            time %= cycleLength;
+        apply();
+    }
+
+    /**
+     * Applies the current step of the tables, if It changed since the last update.
+     */
+    private void apply() {
+        int current = (int) (getTimeOfDay() * STEPS) & (STEPS - 1);
+        if (current == step)
+            return;
+        step = current;
+        sun.setTopLeftCorner(sunCorners[current]);
+        sunHalo.setTopLeftCorner(sunHaloCorners[current]);
+        night.renderer().setOpaqueness(nightOpacities[current]);
+    }
+
+    /**
+     * @return fraction of the cycle that passed, from 0 (noon) through 0.5 (midnight) to 1
+     */
+    public float getTimeOfDay() {
+        return time / cycleLength;
+    }
+
+    /**
+     * @return opaqueness of the night, from 0 at noon to its darkest at midnight
+     */
+    public float getNightOpacity() {
+        return nightOpacities[step];
+    }
+}
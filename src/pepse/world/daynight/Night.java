@@ -9,6 +9,7 @@ import danogl.util.Vector2;
 import pepse.util.ColorSupplier;
 
 import java.awt.*;
+import java.util.Random;
 
 /**
  * Represents darkness of entire window.
@@ -18,6 +19,7 @@ public class Night {
     private static final float DEFAULT_OPAQUENESS = 1;
     private static final float INITIAL_OPACITY = 0;
     private static final float MIDNIGHT_OPACITY = 0.5f;
+    private static final float HALF_CYCLE = 0.5f;
 
     /**
      * This function creates a black rectangular game object that covers the entire game window and changes
@@ -33,17 +35,43 @@ public class Night {
             int layer,
             Vector2 windowDimensions,
             float cycleLength){
-        GameObject night = new GameObject(Vector2.ZERO, windowDimensions,
-                new RectangleRenderable(ColorSupplier.approximateColor(Color.BLACK)));
-        night.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
-        night.setTag(NIGHT_TAG);
-        gameObjects.addGameObject(night, layer);
-        night.renderer().setOpaqueness(DEFAULT_OPAQUENESS);
+        GameObject night = createBody(gameObjects, layer, windowDimensions, null);
         // set transition for switching day and night
         new Transition<>(night, night.renderer()::setOpaqueness, INITIAL_OPACITY,
                 MIDNIGHT_OPACITY, Transition.CUBIC_INTERPOLATOR_FLOAT, cycleLength / 2,
                 Transition.TransitionType.TRANSITION_BACK_AND_FORTH, null);
         return night;
     }
+
+    /**
+     * Creates a black rectangle that covers the entire game window, without changing its opaqueness.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param layer - The number of the layer to which the created game object should be added.
+     * @param windowDimensions - The dimensions of the windows.
+     * @param random - Random generator the color is taken from, null for the shared one of ColorSupplier.
+     * @return A new game object representing darkness.
+     */
+    static GameObject createBody(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
+                                 Random random) {
+        Color color = random != null ? ColorSupplier.approximateColor(Color.BLACK, random) :
+                ColorSupplier.approximateColor(Color.BLACK);
+        GameObject night = new GameObject(Vector2.ZERO, windowDimensions, new RectangleRenderable(color));
+        night.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        night.setTag(NIGHT_TAG);
+        gameObjects.addGameObject(night, layer);
+        night.renderer().setOpaqueness(DEFAULT_OPAQUENESS);
+        return night;
+    }
+
+    /**
+     * Calculates the opaqueness of night according to time of day, like the transition of create does.
+     * @param timeOfDay fraction of the cycle that passed, 0 is noon
+     * @return opaqueness of night
+     */
+    static float opacityAt(float timeOfDay) {
+        // darkens during the first half of the cycle and brightens back during the second
+        float progress = timeOfDay < HALF_CYCLE ? timeOfDay / HALF_CYCLE : (1 - timeOfDay) / HALF_CYCLE;
+        return Transition.CUBIC_INTERPOLATOR_FLOAT.interpolate(INITIAL_OPACITY, MIDNIGHT_OPACITY, progress);
+    }
 }
 
@@ -35,10 +35,7 @@ public class Sun {
             int layer,
             Vector2 windowDimensions,
             float cycleLength){
-        GameObject sun = new GameObject(Vector2.ZERO, new Vector2(SUN_RADIUS , SUN_RADIUS), new OvalRenderable(Color.YELLOW));
-        sun.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
-        sun.setTag(SUN_TAG);
-        gameObjects.addGameObject(sun, layer);
+        GameObject sun = createBody(gameObjects, layer);
         // set transition for movement of sun
         Consumer<Float> consumer = degree -> {sun.setCenter(calcSunPosition(windowDimensions,
                 degree / cycleLength / DEGREE_FACTOR));};
@@ -48,6 +45,31 @@ public class Sun {
         return sun;
     }
 
+    /**
+     * Creates a yellow circle in camera coordinates, without moving It.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param layer - The number of the layer to which the created sun should be added.
+     * @return A new game object representing the sun.
+     */
+    static GameObject createBody(GameObjectCollection gameObjects, int layer) {
+        GameObject sun = new GameObject(Vector2.ZERO, new Vector2(SUN_RADIUS , SUN_RADIUS), new OvalRenderable(Color.YELLOW));
+        sun.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        sun.setTag(SUN_TAG);
+        gameObjects.addGameObject(sun, layer);
+        return sun;
+    }
+
+    /**
+     * Calculates a sun position according to time of day.
+     * @param windowDimensions dimensions of window
+     * @param cycleLength length of a full cycle in seconds
+     * @param timeOfDay fraction of the cycle that passed, 0 is noon
+     * @return position of sun
+     */
+    static Vector2 calcSunPosition(Vector2 windowDimensions, float cycleLength, float timeOfDay) {
+        return calcSunPosition(windowDimensions, FINAL_DEGREE * timeOfDay / cycleLength / DEGREE_FACTOR);
+    }
+
     /**
      * Calculates a sun position according to angle
      * @param windowDimensions dimensions of window
@@ -28,10 +28,22 @@ public class SunHalo{
             int layer,
             GameObject sun,
             Color color){
+        GameObject sunHalo = createBody(gameObjects, layer, color);
+        sunHalo.addComponent(deltaTime -> sunHalo.setCenter(sun.getCenter()));
+        return sunHalo;
+    }
+
+    /**
+     * Creates a halo in camera coordinates, without tying It to a sun.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param layer - The number of the layer to which the created halo should be added.
+     * @param color - The color of the halo.
+     * @return A new game object representing the sun's halo.
+     */
+    static GameObject createBody(GameObjectCollection gameObjects, int layer, Color color) {
         GameObject sunHalo = new GameObject(Vector2.ZERO, new Vector2(Sun.SUN_RADIUS,
                 Sun.SUN_RADIUS).mult(GROWTH_FACTOR), new OvalRenderable(color));
         sunHalo.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
-        sunHalo.addComponent(deltaTime -> sunHalo.setCenter(sun.getCenter()));
         sunHalo.setTag(SUN_HALO_TAG);
         gameObjects.addGameObject(sunHalo, layer);
         return sunHalo;
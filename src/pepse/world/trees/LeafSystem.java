@@ -0,0 +1,242 @@
+package pepse.world.trees;
+
+import danogl.util.Vector2;
+import pepse.util.IntToFloatFunction;
+import pepse.world.Block;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Animates all leaves of the world in one place.
+ * The state of every leaf is kept in parallel primitive arrays, and a single loop per frame advances It,
+ * instead of every leaf owning its own transitions and scheduled task.
+ * Each leaf sways and pulses in the wind, falls after a random time, fades out once It reached the ground
+ * of its column, and fades back in at its original position.
+ */
+public class LeafSystem {
+    private static final byte SWAYING = 0;
+    private static final byte FALLING = 1;
+    private static final byte FADING_OUT = 2;
+    private static final byte FADING_IN = 3;
+    private static final float INITIAL_DEGREE = -5;
+    private static final float FINAL_DEGREE = 5;
+    private static final int MAX_CYCLE = 3;
+    private static final float INITIAL_SIZE = Block.SIZE * 0.99f;
+    private static final float FINAL_SIZE = Block.SIZE * 1.01f;
+    private static final float FADEOUT_TIME = 3;
+    private static final float FADEIN_TIME = 3;
+    private static final int MAX_WAIT_TIME = 300;
+    private static final Vector2 FALLING_VELOCITY = Vector2.DOWN.mult(30);
+    private static final int SIZE_STEPS = 16;
+    private static final int INITIAL_CAPACITY = 256;
+    // the pulse only spans 0.3 pixels, so a few precomputed sizes look the same as exact ones
+    private static final Vector2[] SIZES = new Vector2[SIZE_STEPS + 1];
+    static {
+        for (int i = 0; i <= SIZE_STEPS; i++) {
+            float size = INITIAL_SIZE + (FINAL_SIZE - INITIAL_SIZE) * i / SIZE_STEPS;
+            SIZES[i] = new Vector2(size, size);
+        }
+    }
+
+    private final IntToFloatFunction groundHeightAt;
+    private final Random random;
+    private Leaf[] leaves = new Leaf[INITIAL_CAPACITY];
+    private Vector2[] origins = new Vector2[INITIAL_CAPACITY];
+    private byte[] states = new byte[INITIAL_CAPACITY];
+    private float[] swayPhases = new float[INITIAL_CAPACITY];
+    private float[] swayPeriods = new float[INITIAL_CAPACITY];
+    private float[] pulsePhases = new float[INITIAL_CAPACITY];
+    private float[] pulsePeriods = new float[INITIAL_CAPACITY];
+    private float[] timers = new float[INITIAL_CAPACITY];
+    private float[] landingYs = new float[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Constructor
+     * @param groundHeightAt function to calculating height of ground
+     */
+    public LeafSystem(IntToFloatFunction groundHeightAt) {
+        this(groundHeightAt, new Random());
+    }
+
+    /**
+     * Constructor
+     * @param groundHeightAt function to calculating height of ground
+     * @param random random generator for cycle lengths and falling times
+     */
+    public LeafSystem(IntToFloatFunction groundHeightAt, Random random) {
+        this.groundHeightAt = groundHeightAt;
+        this.random = random;
+    }
+
+    /**
+     * Starts animating a leaf. Its current top left corner is the position It returns to after falling.
+     * @param leaf leaf to animate
+     */
+    public void add(Leaf leaf) {
+        if (size == leaves.length)
+            grow();
+        leaves[size] = leaf;
+        origins[size] = leaf.getTopLeftCorner();
+        leaf.attach(this, size);
+        startSwaying(size);
+        size++;
+    }
+
+    /**
+     * Stops animating a leaf. The last leaf is moved into its slot, so the arrays stay dense.
+     * @param leaf leaf that was added to this system
+     */
+    public void remove(Leaf leaf) {
+        int slot = leaf.getSlot();
+        leaf.attach(null, -1);
+        int last = --size;
+        if (slot != last) {
+            leaves[slot] = leaves[last];
+            origins[slot] = origins[last];
+            states[slot] = states[last];
+            swayPhases[slot] = swayPhases[last];
+            swayPeriods[slot] = swayPeriods[last];
+            pulsePhases[slot] = pulsePhases[last];
+            pulsePeriods[slot] = pulsePeriods[last];
+            timers[slot] = timers[last];
+            landingYs[slot] = landingYs[last];
+            leaves[slot].attach(this, slot);
+        }
+        leaves[last] = null;
+        origins[last] = null;
+    }
+
+    /**
+     * @return number of animated leaves
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Advances all leaves. Leaves outside the visible range keep their timers running, but their angle,
+     * size and opaqueness are only updated once they are visible again.
+     * @param deltaTime time since last frame in seconds
+     * @param minVisibleX left edge of the visible range
+     * @param maxVisibleX right edge of the visible range
+     */
+    public void update(float deltaTime, float minVisibleX, float maxVisibleX) {
+        for (int i = 0; i < size; i++) {
+            Leaf leaf = leaves[i];
+            float x = origins[i].x();
+            boolean visible = x + Block.SIZE >= minVisibleX && x <= maxVisibleX;
+            switch (states[i]) {
+                case SWAYING:
+                    timers[i] -= deltaTime;
+                    if (timers[i] <= 0) {
+                        states[i] = FALLING;
+                        // the leaf lands when its bottom reaches the ground of its column
+                        landingYs[i] = groundHeightAt.applyAsFloat((int) x) - Block.SIZE;
+                        leaf.setVelocity(FALLING_VELOCITY);
+                    }
+                    sway(i, deltaTime, visible);
+                    break;
+                case FALLING:
+                    if (leaf.getTopLeftCorner().y() >= landingYs[i]) {
+                        land(i);
+                        break;
+                    }
+                    // the leaf keeps moving in the wind while falling
+                    sway(i, deltaTime, visible);
+                    break;
+                case FADING_OUT:
+                    timers[i] += deltaTime;
+                    if (timers[i] >= FADEOUT_TIME) {
+                        leaf.setTopLeftCorner(origins[i]);
+                        states[i] = FADING_IN;
+                        timers[i] = 0;
+                        leaf.renderer().setOpaqueness(0);
+                    } else if (visible) {
+                        leaf.renderer().setOpaqueness(1 - timers[i] / FADEOUT_TIME);
+                    }
+                    break;
+                case FADING_IN:
+                    timers[i] += deltaTime;
+                    if (timers[i] >= FADEIN_TIME) {
+                        leaf.renderer().setOpaqueness(1);
+                        startSwaying(i);
+                    } else if (visible) {
+                        leaf.renderer().setOpaqueness(timers[i] / FADEIN_TIME);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Stops a falling leaf on the ground and starts fading It out.
+     * @param slot slot of the leaf that landed
+     */
+    private void land(int slot) {
+        Leaf leaf = leaves[slot];
+        leaf.setVelocity(Vector2.ZERO);
+        leaf.setTopLeftCorner(new Vector2(origins[slot].x(), landingYs[slot]));
+        states[slot] = FADING_OUT;
+        timers[slot] = 0;
+    }
+
+    /**
+     * Advances the angle and size of a leaf in the wind.
+     * @param slot slot of the leaf
+     * @param deltaTime time since last frame in seconds
+     * @param visible whether the leaf is visible
+     */
+    private void sway(int slot, float deltaTime, boolean visible) {
+        swayPhases[slot] += deltaTime;
+        pulsePhases[slot] += deltaTime;
+        if (!visible)
+            return;
+        Leaf leaf = leaves[slot];
+        leaf.renderer().setRenderableAngle(INITIAL_DEGREE + (FINAL_DEGREE - INITIAL_DEGREE) *
+                backAndForth(swayPhases[slot], swayPeriods[slot]));
+        leaf.setDimensions(SIZES[Math.round(SIZE_STEPS * backAndForth(pulsePhases[slot], pulsePeriods[slot]))]);
+    }
+
+    /**
+     * Gives a leaf new cycle lengths and a new falling time, like a leaf that was just created.
+     * @param slot slot of the leaf
+     */
+    private void startSwaying(int slot) {
+        states[slot] = SWAYING;
+        swayPhases[slot] = 0;
+        swayPeriods[slot] = random.nextInt(MAX_CYCLE) + 1;
+        pulsePhases[slot] = 0;
+        pulsePeriods[slot] = random.nextInt(MAX_CYCLE) + 1;
+        timers[slot] = random.nextInt(MAX_WAIT_TIME);
+    }
+
+    /**
+     * Calculates the progress of a transition that goes back and forth.
+     * @param phase time since the transition started
+     * @param period time of one direction
+     * @return value between 0 and 1
+     */
+    private static float backAndForth(float phase, float period) {
+        float progress = (phase / period) % 2;
+        return progress <= 1 ? progress : 2 - progress;
+    }
+
+    /**
+     * Doubles the capacity of all arrays.
+     */
+    private void grow() {
+        int capacity = leaves.length * 2;
+        leaves = Arrays.copyOf(leaves, capacity);
+        origins = Arrays.copyOf(origins, capacity);
+        states = Arrays.copyOf(states, capacity);
+        swayPhases = Arrays.copyOf(swayPhases, capacity);
+        swayPeriods = Arrays.copyOf(swayPeriods, capacity);
+        pulsePhases = Arrays.copyOf(pulsePhases, capacity);
+        pulsePeriods = Arrays.copyOf(pulsePeriods, capacity);
+        timers = Arrays.copyOf(timers, capacity);
+        landingYs = Arrays.copyOf(landingYs, capacity);
+    }
+}
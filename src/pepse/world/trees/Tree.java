@@ -1,31 +1,52 @@
 package pepse.world.trees;
 
+import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
-import pepse.util.ColorSupplier;
+import pepse.util.IntToFloatFunction;
+import pepse.util.RenderablePalette;
+import pepse.util.SeededHash;
 import pepse.world.Block;
+import pepse.world.WorldObjectPool;
+import pepse.world.chunks.ChunkData;
+import pepse.world.chunks.ColumnIndex;
+import pepse.world.chunks.WorldChunkManager;
 import java.awt.*;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
-import java.util.function.Function;
 
 /**
  * Responsible for the creation and management of trees and leaves.
+ * A trunk is a single tall block, and a canopy is drawn as a single baked image. Only the trees near the
+ * center of the world (usually the avatar) get one animated leaf object per leaf, which sway and fall, and
+ * they go back to their image once they are out of sight.
  */
 public class Tree {
     private static final Color BASE_TREE_COLOR = new Color(100, 50, 20);
+    private static final Color BASE_LEAF_COLOR = new Color(50 , 200, 30);
+    private static final int COLOR_VARIANTS = 16;
     private static final int TREE_PROBABILITY = 9;
     private static final int LEAVES_PROBABILITY = 4;
-    private final Function<Integer, Float> groundHeightAt;
+    private final IntToFloatFunction groundHeightAt;
     private final GameObjectCollection gameObjects;
     private final int layer;
     private final int seed;
     private static final int MIN_HEIGHT = 9;
     private static final int MAX_HEIGHT = 5;
-    private final HashMap<Integer, Integer> Memory = new HashMap<>();
     private static final float PART_OF_HEIGHT = 2f / 3;
+    private final RenderablePalette trunkPalette;
+    private final RenderablePalette leafPalette;
+    private final WorldObjectPool pool;
+    private final LeafSystem leafSystem;
+    private final TreeImpostors impostors;
+    // built trees by the column of their trunk
+    private final Map<Integer, TreeState> trees = new HashMap<>();
+    // trees around this X coordinate get animated leaves when they are built, none until It is first set
+    private float liveCenterX = Float.NaN;
+    private float liveDistance;
 
     /**
      * Constructor
@@ -34,37 +55,54 @@ public class Tree {
      * @param layer layer of trees
      * @param seed seed for random crating
      */
-    public Tree(Function<Integer, Float> groundHeightAt, GameObjectCollection gameObjects, int layer, int seed){
+    public Tree(IntToFloatFunction groundHeightAt, GameObjectCollection gameObjects, int layer, int seed){
+        this(groundHeightAt, gameObjects, layer, seed, new WorldObjectPool(),
+                new LeafSystem(groundHeightAt));
+    }
+
+    /**
+     * Constructor
+     * @param groundHeightAt function to calculating height of ground
+     * @param gameObjects gameObjectsCollection
+     * @param layer layer of trees
+     * @param seed seed for random crating
+     * @param pool pool trunks and leaves are taken from
+     * @param leafSystem system that animates the leaves
+     */
+    public Tree(IntToFloatFunction groundHeightAt, GameObjectCollection gameObjects, int layer, int seed,
+                WorldObjectPool pool, LeafSystem leafSystem){
+        this.pool = pool;
+        this.leafSystem = leafSystem;
         this.groundHeightAt = groundHeightAt;
         this.gameObjects = gameObjects;
         this.layer = layer;
         this.seed = seed;
+        this.trunkPalette = new RenderablePalette(BASE_TREE_COLOR, COLOR_VARIANTS, seed);
+        this.leafPalette = new RenderablePalette(BASE_LEAF_COLOR, COLOR_VARIANTS, ~seed);
+        this.impostors = new TreeImpostors(trunkPalette, leafPalette);
+    }
+
+    /**
+     * Decides whether a column is a candidate for a tree, as a pure function of column and seed.
+     * @param column index of column
+     * @return true if a tree may grow in the column
+     */
+    private boolean isTreeCandidate(int column){
+        return SeededHash.bounded(SeededHash.hash(seed, column), TREE_PROBABILITY) == 0;
     }
 
     /**
-     * Creates a tree in current X coordinate according to probability with random height and random leaves.
+     * Calculates the height of the tree in current X coordinate according to probability.
+     * A candidate column only gets a tree if the column to its left is not a candidate, so two trees are
+     * never adjacent to each other and the answer doesn't depend on the order columns are visited in.
      * @param index X coordinate (will be rounded to a multiple of Block.SIZE)
-     * @return tree height
+     * @return tree height, 0 if there is no tree
      */
     private int get_tree_height(int index){
-        // check in memory
-        Random random = new Random(Objects.hash(index, seed));
-        if(Memory.containsKey(index))
-            return Memory.get(index);
-        int thereIsTree = random.nextInt() % TREE_PROBABILITY;
-        int tree_height = 0;
-        if(thereIsTree == 0){
-            tree_height = random.nextInt(MAX_HEIGHT) + MIN_HEIGHT;
-            // safe a tree in Memory to recover It after
-            Memory.put(index, tree_height);
-            // two tree can not adjacent to each other
-            Memory.put(index + Block.SIZE, 0);
-            Memory.put(index - Block.SIZE, 0);
-        }
-        else
-            // not tree
-            Memory.put(index, 0);
-        return tree_height;
+        int column = Math.floorDiv(index, Block.SIZE);
+        if(!isTreeCandidate(column) || isTreeCandidate(column - 1))
+            return 0;
+        return SeededHash.bounded(SeededHash.hash(~seed, column), MAX_HEIGHT) + MIN_HEIGHT;
     }
 
     /**
@@ -73,17 +111,28 @@ public class Tree {
      * @return true if there is, false otherwise.
      */
     public boolean treeAt(int x){
-        return Memory.get(x) != 0;
+        return get_tree_height(x) != 0;
+    }
+
+    /**
+     * Calculates the height of the trunk in given X coordinate.
+     * @param x X coordinate
+     * @return height of trunk in pixels, 0 if there is no tree
+     */
+    public float trunkHeightAt(int x){
+        return get_tree_height(x) * Block.SIZE;
     }
 
     /**
      * Creates leaves of the given tree
      * @param topLeftCorner top left corner of the highest tree block
      * @param tree_height height of tree
+     * @param data chunk data the leaves are added to
      */
-    private void addLeaves(Vector2 topLeftCorner, int tree_height){
+    private void addLeaves(Vector2 topLeftCorner, int tree_height, ChunkData data){
         // create new random generator according to the given seed
         Random leafRand = new Random(Objects.hash(topLeftCorner.x(), seed));
+        int column = Math.floorDiv((int)topLeftCorner.x(), Block.SIZE);
         //calculate number leves in row and col
         int leavesInRow = (int)(tree_height * PART_OF_HEIGHT);
         if(leavesInRow % 2 == 0) leavesInRow ++;
@@ -95,8 +144,9 @@ public class Tree {
                 // probability of creating leaves is 0.75
                 int isLeaf = leafRand.nextInt() % LEAVES_PROBABILITY;
                 if (isLeaf != 0){
-                    new Leaf(new Vector2(startX + i * Block.SIZE,
-                            startY + j * Block.SIZE), gameObjects, layer + 1);
+                    int x = startX + i * Block.SIZE;
+                    int y = startY + j * Block.SIZE;
+                    data.leaves.add(x, y, leafPalette.variantAt(x, y), column);
                 }
             }
         }
@@ -106,18 +156,198 @@ public class Tree {
      * This method creates trees in a given range of x-values.
      * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
+     * @param columnIndex - The index the created trunks and leaves are registered in.
+     */
+    public void createInRange(int minX, int maxX, ColumnIndex columnIndex) {
+        ChunkData data = new ChunkData(WorldChunkManager.chunkIndexAt(minX), minX,
+                (maxX - minX + Block.SIZE - 1) / Block.SIZE);
+        for (int column = 0; column < data.columns; column++)
+            data.groundHeights[column] = groundHeightAt.applyAsFloat(data.columnX(column));
+        generate(data);
+        build(data, columnIndex);
+    }
+
+    /**
+     * Computes trunks and leaves of a chunk whose ground heights are already known.
+     * Does not touch the game objects, so It is safe to call from any thread.
+     * @param data - The chunk data to fill.
      */
-    public void createInRange(int minX, int maxX) {
-        for(int i = minX; i < maxX; i += Block.SIZE) {
+    public void generate(ChunkData data) {
+        for (int column = 0; column < data.columns; column++) {
+            int i = data.columnX(column);
             int tree_height = get_tree_height(i);
             // get the ground height
-            float terrain_height = groundHeightAt.apply(i);
+            float terrain_height = data.groundHeights[column];
             for (int j = 0; j < tree_height; j++) {
-                gameObjects.addGameObject(new Block(new Vector2(i, - (j + 1) * Block.SIZE + terrain_height),
-                        new RectangleRenderable(ColorSupplier.approximateColor(BASE_TREE_COLOR))), layer);
+                float y = - (j + 1) * Block.SIZE + terrain_height;
+                data.trunks.add(i, y, trunkPalette.variantAt(i, (int) y));
             }
             if(tree_height != 0)
-                addLeaves(new Vector2(i, - tree_height  * Block.SIZE + terrain_height), tree_height);
+                addLeaves(new Vector2(i, - tree_height  * Block.SIZE + terrain_height), tree_height, data);
+        }
+    }
+
+    /**
+     * Adds the trunks and canopies of a generated chunk to the game. Must be called from the game thread.
+     * @param data - The generated chunk data.
+     * @param columnIndex - The index the created trunks and leaves are registered in.
+     */
+    public void build(ChunkData data, ColumnIndex columnIndex) {
+        ChunkData.Blocks trunks = data.trunks;
+        for (int first = 0; first < trunks.size(); ) {
+            int count = countOfColumn(trunks, first);
+            // blocks of a trunk go upwards, so the last one is the top of the trunk
+            Block trunk = pool.obtainBlock(new Vector2(trunks.x(first), trunks.y(first + count - 1)),
+                    impostors.trunk(trunks, first, count));
+            trunk.setDimensions(new Vector2(Block.SIZE, count * Block.SIZE));
+            gameObjects.addGameObject(trunk, layer);
+            columnIndex.add(trunks.column(first), trunk, layer);
+            first += count;
+        }
+        ChunkData.Blocks leaves = data.leaves;
+        for (int first = 0; first < leaves.size(); ) {
+            int count = countOfColumn(leaves, first);
+            TreeState tree = new TreeState(leaves, first, count);
+            trees.put(tree.column, tree);
+            if (tree.distanceTo(liveCenterX) <= liveDistance)
+                showLeaves(tree, columnIndex);
+            else
+                showCanopy(tree, columnIndex);
+            first += count;
+        }
+    }
+
+    /**
+     * Gives animated leaves to the trees near a center, and turns the trees that are far from It back into
+     * images. A tree only goes back once It is farther than keepDistance, which should be out of sight, so
+     * leaves never disappear on screen.
+     * @param centerX X coordinate of center
+     * @param liveDistance distance from the center within which trees get animated leaves
+     * @param keepDistance distance from the center beyond which trees lose their animated leaves
+     * @param columnIndex - The index the trunks and leaves are registered in.
+     */
+    public void updateLiveLeaves(float centerX, float liveDistance, float keepDistance, ColumnIndex columnIndex) {
+        this.liveCenterX = centerX;
+        this.liveDistance = liveDistance;
+        for (TreeState tree : trees.values()) {
+            float distance = tree.distanceTo(centerX);
+            if (!tree.live && distance <= liveDistance)
+                showLeaves(tree, columnIndex);
+            else if (tree.live && distance > keepDistance)
+                showCanopy(tree, columnIndex);
+        }
+    }
+
+    /**
+     * Forgets the trees of a range of columns, whose objects were removed from the game.
+     * @param minColumn first column of range
+     * @param maxColumn last column of range (inclusive)
+     */
+    public void unload(int minColumn, int maxColumn) {
+        for (int column = minColumn; column <= maxColumn; column++)
+            trees.remove(column);
+    }
+
+    /**
+     * Replaces the canopy image of a tree with an animated leaf per leaf.
+     * @param tree tree to animate
+     * @param columnIndex - The index the leaves are registered in.
+     */
+    private void showLeaves(TreeState tree, ColumnIndex columnIndex) {
+        if (tree.canopy != null) {
+            GameObject canopy = tree.canopy;
+            columnIndex.removeIf(tree.column, layer + 1, gameObject -> gameObject == canopy, gameObjects, pool);
+            tree.canopy = null;
+        }
+        for (int i = 0; i < tree.leafX.length; i++) {
+            Leaf leaf = pool.obtainLeaf(new Vector2(tree.leafX[i], tree.leafY[i]),
+                    leafPalette.renderable(tree.leafVariants[i]));
+            gameObjects.addGameObject(leaf, layer + 1);
+            leafSystem.add(leaf);
+            // leaves belong to the column of their trunk
+            columnIndex.add(tree.column, leaf, layer + 1);
+        }
+        tree.live = true;
+    }
+
+    /**
+     * Replaces the animated leaves of a tree, if It has any, with the image of its canopy.
+     * @param tree tree to show as an image
+     * @param columnIndex - The index the canopy is registered in.
+     */
+    private void showCanopy(TreeState tree, ColumnIndex columnIndex) {
+        if (tree.live)
+            columnIndex.removeIf(tree.column, layer + 1, gameObject -> gameObject instanceof Leaf, gameObjects,
+                    pool);
+        if (tree.canopyRenderable == null)
+            tree.canopyRenderable = impostors.canopy(tree.leafX, tree.leafY, tree.leafVariants, tree.minX,
+                    tree.minY, tree.columns, tree.rows);
+        tree.canopy = pool.obtainTile(new Vector2(tree.minX, tree.minY), tree.canopyRenderable);
+        tree.canopy.setDimensions(new Vector2(tree.columns * Block.SIZE, tree.rows * Block.SIZE));
+        gameObjects.addGameObject(tree.canopy, layer + 1);
+        columnIndex.add(tree.column, tree.canopy, layer + 1);
+        tree.live = false;
+    }
+
+    /**
+     * Counts the blocks that follow each other in the same column.
+     * @param blocks list of blocks, grouped by column
+     * @param first index of the first block of the column
+     * @return number of blocks of the column
+     */
+    private static int countOfColumn(ChunkData.Blocks blocks, int first) {
+        int count = 1;
+        while (first + count < blocks.size() && blocks.column(first + count) == blocks.column(first))
+            count++;
+        return count;
+    }
+
+    /**
+     * The leaves of a built tree, and whether they are shown as animated leaves or as an image.
+     */
+    private static class TreeState {
+        private final int column;
+        private final float[] leafX;
+        private final float[] leafY;
+        private final int[] leafVariants;
+        private final float minX;
+        private final float minY;
+        private final int columns;
+        private final int rows;
+        private GameObject canopy;
+        private Renderable canopyRenderable;
+        private boolean live;
+
+        private TreeState(ChunkData.Blocks leaves, int first, int count) {
+            column = leaves.column(first);
+            leafX = new float[count];
+            leafY = new float[count];
+            leafVariants = new int[count];
+            float maxX = Float.NEGATIVE_INFINITY;
+            float maxY = Float.NEGATIVE_INFINITY;
+            float left = Float.POSITIVE_INFINITY;
+            float top = Float.POSITIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                leafX[i] = leaves.x(first + i);
+                leafY[i] = leaves.y(first + i);
+                leafVariants[i] = leaves.variant(first + i);
+                left = Math.min(left, leafX[i]);
+                top = Math.min(top, leafY[i]);
+                maxX = Math.max(maxX, leafX[i]);
+                maxY = Math.max(maxY, leafY[i]);
+            }
+            minX = left;
+            minY = top;
+            columns = Math.round((maxX - minX) / Block.SIZE) + 1;
+            rows = Math.round((maxY - minY) / Block.SIZE) + 1;
+        }
+
+        /**
+         * @param x X coordinate
+         * @return horizontal distance between the trunk and x, NaN if x is NaN
+         */
+        private float distanceTo(float x) {
+            return Math.abs(column * Block.SIZE + Block.SIZE / 2f - x);
         }
     }
 }
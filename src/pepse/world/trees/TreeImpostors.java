@@ -0,0 +1,153 @@
+package pepse.world.trees;
+
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+import pepse.util.RenderablePalette;
+import pepse.world.Block;
+import pepse.world.chunks.ChunkData;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bakes the trunk and the canopy of a tree into single images, so a tree can be drawn by two objects instead
+ * of one per block. Images are cached by the shape and colors they show, so a tree that is loaded again reuses
+ * its images. Must only be used from the game thread.
+ */
+class TreeImpostors {
+    private static final int CACHE_SIZE = 128;
+    private static final long HASH_BASIS = 0xcbf29ce484222325L;
+    private static final long HASH_PRIME = 0x100000001b3L;
+    private static final int TRUNK = 1;
+    private static final int CANOPY = 2;
+    private final RenderablePalette trunkPalette;
+    private final RenderablePalette leafPalette;
+    // least recently used images are dropped first
+    private final Map<Key, Renderable> cache = new LinkedHashMap<Key, Renderable>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Renderable> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Constructor
+     * @param trunkPalette palette of trunk blocks
+     * @param leafPalette palette of leaves
+     */
+    TreeImpostors(RenderablePalette trunkPalette, RenderablePalette leafPalette) {
+        this.trunkPalette = trunkPalette;
+        this.leafPalette = leafPalette;
+    }
+
+    /**
+     * Returns the image of a trunk, one block wide.
+     * @param trunks trunk blocks of a chunk
+     * @param first index of the lowest block of the trunk
+     * @param count number of blocks of the trunk, which follow each other upwards
+     * @return rendering of the whole trunk
+     */
+    Renderable trunk(ChunkData.Blocks trunks, int first, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = trunks.variant(first + i);
+        Key key = new Key(TRUNK, values);
+        Renderable renderable = cache.get(key);
+        if (renderable != null)
+            return renderable;
+        BufferedImage image = new BufferedImage(Block.SIZE, count * Block.SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < count; i++) {
+            graphics.setColor(trunkPalette.color(trunks.variant(first + i)));
+            // the lowest block is at the bottom of the image
+            graphics.fillRect(0, (count - 1 - i) * Block.SIZE, Block.SIZE, Block.SIZE);
+        }
+        graphics.dispose();
+        renderable = new ImageRenderable(image);
+        cache.put(key, renderable);
+        return renderable;
+    }
+
+    /**
+     * Returns the image of a canopy. Places without a leaf are transparent.
+     * @param leafX X coordinates of leaves
+     * @param leafY Y coordinates of leaves
+     * @param variants palette variants of leaves
+     * @param minX left edge of canopy
+     * @param minY top edge of canopy
+     * @param columns width of canopy in blocks
+     * @param rows height of canopy in blocks
+     * @return rendering of the whole canopy
+     */
+    Renderable canopy(float[] leafX, float[] leafY, int[] variants, float minX, float minY, int columns, int rows) {
+        // size of canopy, then column, row and variant of every leaf
+        int[] values = new int[2 + 3 * leafX.length];
+        values[0] = columns;
+        values[1] = rows;
+        for (int i = 0; i < leafX.length; i++) {
+            values[2 + 3 * i] = Math.round((leafX[i] - minX) / Block.SIZE);
+            values[3 + 3 * i] = Math.round((leafY[i] - minY) / Block.SIZE);
+            values[4 + 3 * i] = variants[i];
+        }
+        Key key = new Key(CANOPY, values);
+        Renderable renderable = cache.get(key);
+        if (renderable != null)
+            return renderable;
+        BufferedImage image = new BufferedImage(columns * Block.SIZE, rows * Block.SIZE,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < leafX.length; i++) {
+            graphics.setColor(leafPalette.color(variants[i]));
+            graphics.fillRect(Math.round(leafX[i] - minX), Math.round(leafY[i] - minY), Block.SIZE, Block.SIZE);
+        }
+        graphics.dispose();
+        renderable = new ImageRenderable(image);
+        cache.put(key, renderable);
+        return renderable;
+    }
+
+    /**
+     * The kind of an image and the values It is drawn from. Two keys are equal only if all their values are, so
+     * images whose hashes collide are still told apart.
+     */
+    private static class Key {
+        private final int kind;
+        private final int[] values;
+        private final int hash;
+
+        private Key(int kind, int[] values) {
+            this.kind = kind;
+            this.values = values;
+            this.hash = hash(kind, values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return kind == key.kind && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Hashes the kind and values of a key (FNV-1a over whole values).
+         * @param kind kind of image
+         * @param values values the image is drawn from
+         * @return hash of key
+         */
+        private static int hash(int kind, int[] values) {
+            long hash = (HASH_BASIS ^ kind) * HASH_PRIME;
+            for (int value : values)
+                hash = (hash ^ value) * HASH_PRIME;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package pepse.headless;
+
+import danogl.util.Vector2;
+import pepse.world.Terrain;
+import pepse.world.chunks.ChunkData;
+import pepse.world.chunks.ChunkGenerator;
+import pepse.world.chunks.RegionFile;
+import pepse.world.chunks.RegionStore;
+import pepse.world.trees.Tree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Checks that regions pregenerated on several threads are byte-identical to regions written from chunks that
+ * ChunkGenerator.generate produces on a single thread. Exits with status 1 if any region differs.
+ * Usage: PregenerateRegionsCheck [seed] [regions] [threads]
+ */
+public class PregenerateRegionsCheck {
+    private static final int DEFAULT_SEED = 1234567;
+    private static final int DEFAULT_REGIONS = 8;
+    private static final int DEFAULT_THREADS = 8;
+    private static final float WINDOW_HEIGHT = 700;
+
+    public static void main(String[] args) throws Exception {
+        int seed = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SEED;
+        int regions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REGIONS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
+        int firstRegion = -regions / 2;
+        Path directory = Files.createTempDirectory("pepse-regions");
+        try {
+            Path parallel = directory.resolve("parallel");
+            Path serial = directory.resolve("serial");
+            PregenerateRegions.pregenerate(parallel, seed, WINDOW_HEIGHT, firstRegion, regions, threads);
+            writeSerially(serial, seed, firstRegion, regions);
+            int mismatches = 0;
+            for (int region = firstRegion; region < firstRegion + regions; region++) {
+                Path expected = RegionStore.pathOf(serial, seed, region);
+                Path actual = RegionStore.pathOf(parallel, seed, region);
+                long offset = Files.mismatch(expected, actual);
+                if (offset != -1) {
+                    System.out.println("region " + region + " differs at byte " + offset);
+                    mismatches++;
+                }
+            }
+            System.out.println(regions + " regions on " + threads + " threads, " + mismatches + " mismatches");
+            if (mismatches != 0)
+                System.exit(1);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Writes regions of chunks generated one after the other by a single terrain and tree.
+     * @param directory directory of region files
+     * @param seed seed of world
+     * @param firstRegion index of first region
+     * @param regions number of regions
+     * @throws IOException if a file can't be written
+     */
+    private static void writeSerially(Path directory, int seed, int firstRegion, int regions) throws IOException {
+        Files.createDirectories(directory);
+        Terrain terrain = new Terrain(null, 0, new Vector2(0, WINDOW_HEIGHT), seed);
+        Tree tree = new Tree(x -> terrain.groundHeightAt(x), null, 0, seed);
+        for (int region = firstRegion; region < firstRegion + regions; region++) {
+            ChunkData[] chunks = new ChunkData[RegionFile.REGION_CHUNKS];
+            for (int i = 0; i < chunks.length; i++)
+                chunks[i] = ChunkGenerator.generate(terrain, tree, region * RegionFile.REGION_CHUNKS + i);
+            RegionFile.write(RegionStore.pathOf(directory, seed, region), seed, WINDOW_HEIGHT, chunks);
+        }
+    }
+
+    /**
+     * Deletes a directory and everything in It.
+     * @param directory directory to delete
+     * @throws IOException if a file can't be deleted
+     */
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package pepse.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that the scalar PerlinNoise and the implementation chosen by PerlinNoise.create generate exactly the
+ * noise of the original 3D sampling smoothNoise(x / size, 0, 0), bit for bit, over random seeds, for the single
+ * and the batch API, and while several threads use one instance at once. The reference keeps whole seeds off
+ * the 1D path, so the terrain of existing seeds is compared with the terrain they always had.
+ * Run with --add-modules jdk.incubator.vector and the vector classes on the class path to check
+ * VectorizedPerlinNoise. Exits with status 1 if any value differs.
+ * Usage: PerlinNoiseParityCheck [seeds]
+ */
+public class PerlinNoiseParityCheck {
+    private static final int DEFAULT_SEEDS = 64;
+    private static final long RANDOM_SEED = 0x5eed;
+    private static final int BATCHES_PER_SEED = 32;
+    // long enough for several lane groups and a tail that doesn't fill one
+    private static final int MAX_BATCH_LENGTH = 67;
+    private static final double MAX_START = 1e6;
+    private static final double[] STEPS = {30, 1, 0.37};
+    private static final int THREADS = 8;
+    private static final int CONCURRENT_BATCHES = 200;
+    private static final int CONCURRENT_LENGTH = 32;
+
+    public static void main(String[] args) throws Exception {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SEEDS;
+        Random random = new Random(RANDOM_SEED);
+        System.out.println("checking PerlinNoise and " + PerlinNoise.create(0).getClass().getName()
+                + " against the 3D sampling");
+        long mismatches = 0;
+        for (int i = 0; i < seeds; i++) {
+            // whole seeds like the game uses, and some fractional ones for the 3D path
+            double seed = i % 8 == 7 ? random.nextDouble() * 1000 : random.nextInt();
+            mismatches += checkSequential(seed, random);
+            mismatches += checkConcurrent(seed, random.nextLong());
+        }
+        System.out.println(seeds + " seeds, " + mismatches + " mismatches");
+        if (mismatches != 0)
+            System.exit(1);
+    }
+
+    /**
+     * Compares single values and batches of random positions, lengths and steps with the 3D sampling.
+     * @param seed seed of noise
+     * @param random source of positions
+     * @return number of values that differ
+     */
+    private static long checkSequential(double seed, Random random) {
+        PerlinNoise reference = new PerlinNoise(seed, false);
+        PerlinNoise scalar = new PerlinNoise(seed);
+        PerlinNoise created = PerlinNoise.create(seed);
+        long mismatches = 0;
+        for (int batch = 0; batch < BATCHES_PER_SEED; batch++) {
+            double startX = (random.nextDouble() * 2 - 1) * MAX_START;
+            double step = STEPS[batch % STEPS.length];
+            float[] scalarOut = new float[1 + random.nextInt(MAX_BATCH_LENGTH)];
+            float[] createdOut = new float[scalarOut.length];
+            scalar.noise(startX, step, scalarOut);
+            created.noise(startX, step, createdOut);
+            for (int i = 0; i < scalarOut.length; i++) {
+                double x = startX + i * step;
+                float expected = reference.noise(x);
+                mismatches += report(seed, x, expected, scalar.noise(x), "scalar single");
+                mismatches += report(seed, x, expected, scalarOut[i], "scalar batch");
+                mismatches += report(seed, x, expected, created.noise(x), "created single");
+                mismatches += report(seed, x, expected, createdOut[i], "created batch");
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Lets several threads fill batches with one shared instance at the same time, and compares every batch
+     * with the 3D sampling.
+     * @param seed seed of noise
+     * @param positionSeed seed of the positions of the batches
+     * @return number of values that differ
+     * @throws Exception if a thread fails
+     */
+    private static long checkConcurrent(double seed, long positionSeed) throws Exception {
+        PerlinNoise reference = new PerlinNoise(seed, false);
+        PerlinNoise shared = PerlinNoise.create(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                long threadSeed = positionSeed + thread;
+                results.add(executor.submit(() -> {
+                    Random random = new Random(threadSeed);
+                    long mismatches = 0;
+                    float[] out = new float[CONCURRENT_LENGTH];
+                    for (int batch = 0; batch < CONCURRENT_BATCHES; batch++) {
+                        double startX = Math.floor((random.nextDouble() * 2 - 1) * MAX_START);
+                        shared.noise(startX, STEPS[0], out);
+                        for (int i = 0; i < out.length; i++) {
+                            double x = startX + i * STEPS[0];
+                            mismatches += report(seed, x, reference.noise(x), out[i], "concurrent batch");
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            long mismatches = 0;
+            for (Future<Long> result : results)
+                mismatches += result.get();
+            return mismatches;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Prints a value that differs from the expected one.
+     * @param seed seed of noise
+     * @param x position of value
+     * @param expected value of the 3D sampling
+     * @param actual value of the checked implementation
+     * @param api name of the checked API
+     * @return 1 if the values differ, 0 otherwise
+     */
+    private static long report(double seed, double x, float expected, float actual, String api) {
+        if (Float.floatToRawIntBits(expected) == Float.floatToRawIntBits(actual))
+            return 0;
+        System.out.println(api + ": seed " + seed + ", x " + x + ": expected " + expected + ", got " + actual);
+        return 1;
+    }
+}
@@ -0,0 +1,151 @@
+package pepse.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * PerlinNoise whose batch API evaluates many x positions per lane group with the Vector API.
+ * Every lane performs the same double arithmetic as the scalar 1D path, so results are identical bit for bit.
+ * Requires --add-modules jdk.incubator.vector, PerlinNoise.create picks It when the module is present.
+ * Like PerlinNoise It is safe to use from several threads at once: every batch call has its own scratch arrays.
+ */
+public class VectorizedPerlinNoise extends PerlinNoise {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorShape HALF_SHAPE = VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2);
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED.withShape(HALF_SHAPE);
+    private static final int LANES = DOUBLES.length();
+    private static final double ROUNDING_MAGIC = 0x1.8p52;
+    private final double[] laneOffsets = new double[LANES];
+    private final double[] gradientTable;
+
+    /**
+     * Constructor.
+     * @param seed - A seed for a random number generator.
+     */
+    public VectorizedPerlinNoise(double seed) {
+        super(seed);
+        for (int lane = 0; lane < LANES; lane++) {
+            laneOffsets[lane] = lane;
+        }
+        int[] gradients = isOneDimensional() ? getGradients() : new int[0];
+        gradientTable = new double[gradients.length];
+        for (int i = 0; i < gradientTable.length; i++) {
+            gradientTable[i] = gradients[i];
+        }
+    }
+
+    /**
+     * Generates noise for evenly spaced x values at once, out[i] = noise(startX + i * step).
+     * @param startX first x to generate noise from
+     * @param step distance between consecutive x values
+     * @param out array to fill with noise, its length is the number of values
+     */
+    @Override
+    public void noise(double startX, double step, float[] out) {
+        if (!isOneDimensional()) {
+            super.noise(startX, step, out);
+            return;
+        }
+        DoubleVector lanes = DoubleVector.fromArray(DOUBLES, laneOffsets, 0);
+        Scratch scratch = new Scratch();
+        int vectorized = DOUBLES.loopBound(out.length);
+        for (int i = 0; i < vectorized; i += LANES) {
+            DoubleVector x = lanes.add(i).mul(step).add(startX);
+            lanesNoise(x, scratch).intoArray(out, i);
+        }
+        // tail that doesn't fill a lane group
+        for (int i = vectorized; i < out.length; i++) {
+            out[i] = noise(startX + i * step);
+        }
+    }
+
+    /*
+     * noise(x) of every lane, with the octave loop and the float accumulation of the scalar version.
+     */
+    private FloatVector lanesNoise(DoubleVector x, Scratch scratch) {
+        float size = getDefaultSize();
+        float initialSize = size;
+
+        DoubleVector value = DoubleVector.zero(DOUBLES);
+        while (size >= 1) {
+            DoubleVector octave = smoothNoise1D(x.div(size), scratch).mul(size);
+            // round to float after every octave, like value += ... on a float
+            value = toFloat(value.add(octave)).convertShape(VectorOperators.F2D, DOUBLES, 0)
+                    .reinterpretAsDoubles();
+            size /= 2.0;
+        }
+
+        return toFloat(value).div(initialSize).mul(250);
+    }
+
+    /*
+     * smoothNoise1D of every lane.
+     */
+    private DoubleVector smoothNoise1D(DoubleVector x, Scratch scratch) {
+        // Offset the coordinate by the seed value, the same way smoothNoise does
+        x = x.add(getSeed()).add(getSeed());
+
+        DoubleVector floor = floor(x);
+        // X = (int) floor & 255, with the saturation of the int cast
+        DoubleVector saturated = floor.max(Integer.MIN_VALUE).min(Integer.MAX_VALUE);
+        saturated.sub(floor(saturated.mul(1.0 / 256)).mul(256)).intoArray(scratch.latticeXValues, 0);
+        // the gradient lookup is a table read per lane, gathers are slower than this loop
+        for (int lane = 0; lane < LANES; lane++) {
+            int X = (int) scratch.latticeXValues[lane];
+            scratch.leftGradients[lane] = gradientTable[X];
+            scratch.rightGradients[lane] = gradientTable[X + 1];
+        }
+        x = x.sub(floor);
+
+        DoubleVector u = fade(x);
+        DoubleVector a = gradient(DoubleVector.fromArray(DOUBLES, scratch.leftGradients, 0), x);
+        DoubleVector b = gradient(DoubleVector.fromArray(DOUBLES, scratch.rightGradients, 0), x.sub(1));
+        return a.add(u.mul(b.sub(a)));
+    }
+
+    /*
+     * floor of every lane, exact for magnitudes below 2^51: adding and removing 1.5 * 2^52 rounds to an integer
+     * without leaving the double domain, and rounding up is then corrected.
+     */
+    private static DoubleVector floor(DoubleVector x) {
+        DoubleVector rounded = x.add(ROUNDING_MAGIC).sub(ROUNDING_MAGIC);
+        return rounded.sub(1, rounded.compare(VectorOperators.GT, x));
+    }
+
+    /*
+     * selects x, -x or 0 according to the sign of the gradient of every lane.
+     */
+    private DoubleVector gradient(DoubleVector gradient, DoubleVector x) {
+        VectorMask<Double> positive = gradient.compare(VectorOperators.GT, 0);
+        VectorMask<Double> negative = gradient.compare(VectorOperators.LT, 0);
+        return DoubleVector.zero(DOUBLES).blend(x, positive).blend(x.neg(), negative);
+    }
+
+    /*
+     * fade of every lane, in the same order of operations as the scalar fade.
+     */
+    private static DoubleVector fade(DoubleVector t) {
+        return t.mul(t).mul(t).mul(t.mul(t.mul(6).sub(15)).add(10));
+    }
+
+    /*
+     * rounds every lane to float.
+     */
+    private static FloatVector toFloat(DoubleVector value) {
+        return value.convertShape(VectorOperators.D2F, FLOATS, 0).reinterpretAsFloats();
+    }
+
+    /*
+     * per lane values of a lane group that are moved between vectors and the gradient table. Owned by a single
+     * batch call, so concurrent calls on one instance don't overwrite each other.
+     */
+    private static class Scratch {
+        private final double[] latticeXValues = new double[LANES];
+        private final double[] leftGradients = new double[LANES];
+        private final double[] rightGradients = new double[LANES];
+    }
+}